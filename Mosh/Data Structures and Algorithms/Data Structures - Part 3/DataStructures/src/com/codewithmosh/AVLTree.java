@@ -37,6 +37,20 @@ public class AVLTree {
     return balance(root);
   }
 
+  // O(log n)
+  public boolean contains(int value) {
+    var current = root;
+    while (current != null) {
+      if (value < current.value)
+        current = current.leftChild;
+      else if (value > current.value)
+        current = current.rightChild;
+      else
+        return true;
+    }
+    return false;
+  }
+
   private AVLNode balance(AVLNode root) {
     if (isLeftHeavy(root)) {
       if (balanceFactor(root.leftChild) < 0)
@@ -1,5 +1,7 @@
 package com.codewithmosh;
 
+import java.util.Arrays;
+
 public class Array {
   private int[] items;
   private int count;
@@ -27,22 +29,27 @@ public class Array {
     // more readable.
     resizeIfRequired();
 
-    for (int i = count - 1; i >= index; i--)
-      items[i + 1] = items[i];
+    System.arraycopy(items, index, items, index + 1, count - index);
 
     items[index] = item;
     count++;
   }
 
-  private void resizeIfRequired() {
-    if (items.length == count) {
-      int[] newItems = new int[count * 2];
+  // Appends all the given items, growing the array at most once.
+  public void insertAll(int[] newItems) {
+    ensureCapacity(count + newItems.length);
 
-      for (int i = 0; i < count; i++)
-        newItems[i] = items[i];
+    System.arraycopy(newItems, 0, items, count, newItems.length);
+    count += newItems.length;
+  }
 
-      items = newItems;
-    }
+  private void resizeIfRequired() {
+    ensureCapacity(count + 1);
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (items.length < capacity)
+      items = Arrays.copyOf(items, Math.max(capacity, items.length * 2));
   }
 
   public void reverse() {
@@ -54,25 +61,105 @@ public class Array {
     items = newItems;
   }
 
+  // The kernels below (max, min, sum, count, indexOf) work on blocks
+  // of 8 items with independent accumulators instead of one item at a
+  // time. A single accumulator makes every step wait for the previous
+  // one; separate ones let the CPU work on several items at once, and
+  // simple loops like these get compiled to SIMD instructions by the
+  // JIT. The leftover items (count % 8) are handled one at a time.
+  private static final int BLOCK = 8;
+
   public int max() {
     // O(n): Because we have to iterate over
     // the entire array to find the largest
     // number. This number may be at the end
     // of the array (worst case scenario).
-    int max = 0;
-    for (int item : items)
-      if (item > max)
-        max = item;
+    //
+    // We only look at the first count items; the
+    // rest of the array is unused space (zeros).
+    if (count == 0)
+      throw new IllegalStateException();
+
+    int max0 = items[0], max1 = max0, max2 = max0, max3 = max0;
+    var i = 0;
+    for (; i + BLOCK <= count; i += BLOCK) {
+      max0 = Math.max(max0, Math.max(items[i], items[i + 4]));
+      max1 = Math.max(max1, Math.max(items[i + 1], items[i + 5]));
+      max2 = Math.max(max2, Math.max(items[i + 2], items[i + 6]));
+      max3 = Math.max(max3, Math.max(items[i + 3], items[i + 7]));
+    }
+    for (; i < count; i++)
+      max0 = Math.max(max0, items[i]);
+
+    return Math.max(Math.max(max0, max1), Math.max(max2, max3));
+  }
+
+  // O(n)
+  public int min() {
+    if (count == 0)
+      throw new IllegalStateException();
+
+    int min0 = items[0], min1 = min0, min2 = min0, min3 = min0;
+    var i = 0;
+    for (; i + BLOCK <= count; i += BLOCK) {
+      min0 = Math.min(min0, Math.min(items[i], items[i + 4]));
+      min1 = Math.min(min1, Math.min(items[i + 1], items[i + 5]));
+      min2 = Math.min(min2, Math.min(items[i + 2], items[i + 6]));
+      min3 = Math.min(min3, Math.min(items[i + 3], items[i + 7]));
+    }
+    for (; i < count; i++)
+      min0 = Math.min(min0, items[i]);
+
+    return Math.min(Math.min(min0, min1), Math.min(min2, min3));
+  }
+
+  // O(n). Returns a long so that summing many large ints can't overflow.
+  public long sum() {
+    long sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+    var i = 0;
+    for (; i + BLOCK <= count; i += BLOCK) {
+      sum0 += (long) items[i] + items[i + 4];
+      sum1 += (long) items[i + 1] + items[i + 5];
+      sum2 += (long) items[i + 2] + items[i + 6];
+      sum3 += (long) items[i + 3] + items[i + 7];
+    }
+    for (; i < count; i++)
+      sum0 += items[i];
+
+    return sum0 + sum1 + sum2 + sum3;
+  }
+
+  // O(n): Returns how many times item appears in the array.
+  public int count(int item) {
+    // (a == b) ? 1 : 0 compiles to a compare-and-set, not a branch,
+    // so the loop runs at the same speed no matter how often we match.
+    int count0 = 0, count1 = 0, count2 = 0, count3 = 0;
+    var i = 0;
+    for (; i + BLOCK <= count; i += BLOCK) {
+      count0 += (items[i] == item ? 1 : 0) + (items[i + 4] == item ? 1 : 0);
+      count1 += (items[i + 1] == item ? 1 : 0) + (items[i + 5] == item ? 1 : 0);
+      count2 += (items[i + 2] == item ? 1 : 0) + (items[i + 6] == item ? 1 : 0);
+      count3 += (items[i + 3] == item ? 1 : 0) + (items[i + 7] == item ? 1 : 0);
+    }
+    for (; i < count; i++)
+      if (items[i] == item)
+        count0++;
 
-    return max;
+    return count0 + count1 + count2 + count3;
   }
 
+  // O((n + m) log m): Calling other.indexOf() for every item would
+  // be O(n * m). Instead we sort a copy of the other array once and
+  // look each item up with a binary search.
   public Array intersect(Array other) {
-    var intersection = new Array(count);
+    var intersection = new Array(Math.max(1, count));
 
-    for (int item : items)
-      if (other.indexOf(item) >= 0)
-        intersection.insert(item);
+    var sorted = Arrays.copyOf(other.items, other.count);
+    Arrays.sort(sorted);
+
+    for (var i = 0; i < count; i++)
+      if (Arrays.binarySearch(sorted, items[i]) >= 0)
+        intersection.insert(items[i]);
 
     return intersection;
   }
@@ -81,14 +168,34 @@ public class Array {
     if (index < 0 || index >= count)
       throw new IllegalArgumentException();
 
-    for (int i = index; i < count; i++)
-      items[i] = items[i + 1];
+    removeRange(index, index + 1);
+  }
+
+  // Removes the items from index from (inclusive) to index to (exclusive)
+  // with a single System.arraycopy, instead of shifting the tail of the
+  // array one position at a time for every removed item.
+  public void removeRange(int from, int to) {
+    if (from < 0 || to > count || from > to)
+      throw new IllegalArgumentException();
 
-    count--;
+    System.arraycopy(items, to, items, from, count - to);
+    count -= to - from;
   }
 
   public int indexOf(int item) {
-    for (int i = 0; i < count; i++)
+    // We first check a whole block for a match with non-short-circuit
+    // ORs (one branch per 8 items instead of 8 branches), and only
+    // look for the exact position in the block that matched.
+    var i = 0;
+    for (; i + BLOCK <= count; i += BLOCK) {
+      if ((items[i] == item) | (items[i + 1] == item)
+              | (items[i + 2] == item) | (items[i + 3] == item)
+              | (items[i + 4] == item) | (items[i + 5] == item)
+              | (items[i + 6] == item) | (items[i + 7] == item))
+        break;
+    }
+
+    for (; i < count; i++)
       if (items[i] == item)
         return i;
 
@@ -0,0 +1,516 @@
+package com.codewithmosh;
+
+// An ordered map from int to int, kept in a B+ tree.
+//
+// In AVLTree every node holds one value and two pointers, so a lookup in
+// a million values follows about 20 pointers to nodes that are scattered
+// all over the heap: about 20 cache misses. Here a node holds up to
+// `fanout` keys (64 to 256 works well) side by side in an int[], so the
+// tree is only 3 or 4 levels deep, and most of the work of a lookup is
+// scanning keys that are already in the cache.
+//
+// - Inner nodes only hold keys to guide the search: children[i] holds
+//   the keys < keys[i], and children[i + 1] the keys >= keys[i].
+// - Leaves hold the keys and their values, and every leaf points to the
+//   next one, so a range scan finds its first key and then just walks
+//   along the leaves.
+// - Every node except the root is at least half full. When a node gets
+//   too full, we split it in two; when it gets too empty, we borrow a
+//   key from a sibling or merge with it.
+public class BPlusTree {
+  public static final int DEFAULT_FANOUT = 128;
+  private static final int MIN_FANOUT = 4;
+  private static final int MAX_FANOUT = 1024;
+
+  // Below this many keys, we stop halving and count the keys instead.
+  private static final int LINEAR_SEARCH_SIZE = 16;
+
+  public interface EntryVisitor {
+    void visit(int key, int value);
+  }
+
+  // The arrays have room for one key more than the fanout, so we can
+  // insert first and split afterwards.
+  private abstract static class Node {
+    final int[] keys;
+    int count;
+
+    Node(int fanout) {
+      keys = new int[fanout + 1];
+    }
+  }
+
+  private static class Leaf extends Node {
+    final int[] values;
+    Leaf next;
+
+    Leaf(int fanout) {
+      super(fanout);
+      values = new int[fanout + 1];
+    }
+  }
+
+  private static class Inner extends Node {
+    final Node[] children;
+
+    Inner(int fanout) {
+      super(fanout);
+      children = new Node[fanout + 2];
+    }
+  }
+
+  private final int fanout;
+  private final int minKeys;
+  private Node root;
+  private int size;
+
+  // Set by insert() when the node it was called on splits: the new node
+  // on the right, and the smallest key under it.
+  private Node splitNode;
+  private int splitKey;
+
+  public BPlusTree() {
+    this(DEFAULT_FANOUT);
+  }
+
+  public BPlusTree(int fanout) {
+    if (fanout < MIN_FANOUT || fanout > MAX_FANOUT)
+      throw new IllegalArgumentException(
+              "fanout must be between " + MIN_FANOUT + " and " + MAX_FANOUT + ".");
+
+    this.fanout = fanout;
+    this.minKeys = fanout / 2;
+    this.root = new Leaf(fanout);
+  }
+
+  // O(n). Builds the tree bottom-up from keys in ascending order (no
+  // duplicates), without any splits: we fill the leaves, then build
+  // each level of inner nodes over the level below. The nodes of a
+  // level get the same number of keys, give or take one.
+  public static BPlusTree fromSorted(int[] keys, int[] values, int fanout) {
+    if (keys.length != values.length)
+      throw new IllegalArgumentException("keys and values must have the same length.");
+    for (var i = 1; i < keys.length; i++)
+      if (keys[i] <= keys[i - 1])
+        throw new IllegalArgumentException("keys must be sorted and unique.");
+
+    var tree = new BPlusTree(fanout);
+    if (keys.length == 0)
+      return tree;
+
+    var leafCount = (keys.length + fanout - 1) / fanout;
+    var level = new Node[leafCount];
+    var firstKeys = new int[leafCount];
+    Leaf previous = null;
+    for (var i = 0; i < leafCount; i++) {
+      var from = (int) ((long) keys.length * i / leafCount);
+      var to = (int) ((long) keys.length * (i + 1) / leafCount);
+
+      var leaf = new Leaf(fanout);
+      System.arraycopy(keys, from, leaf.keys, 0, to - from);
+      System.arraycopy(values, from, leaf.values, 0, to - from);
+      leaf.count = to - from;
+      if (previous != null)
+        previous.next = leaf;
+      previous = leaf;
+
+      level[i] = leaf;
+      firstKeys[i] = keys[from];
+    }
+
+    while (level.length > 1) {
+      var parentCount = (level.length + fanout) / (fanout + 1);
+      var parents = new Node[parentCount];
+      var parentFirstKeys = new int[parentCount];
+      for (var i = 0; i < parentCount; i++) {
+        var from = (int) ((long) level.length * i / parentCount);
+        var to = (int) ((long) level.length * (i + 1) / parentCount);
+
+        var inner = new Inner(fanout);
+        System.arraycopy(level, from, inner.children, 0, to - from);
+        System.arraycopy(firstKeys, from + 1, inner.keys, 0, to - from - 1);
+        inner.count = to - from - 1;
+
+        parents[i] = inner;
+        parentFirstKeys[i] = firstKeys[from];
+      }
+      level = parents;
+      firstKeys = parentFirstKeys;
+    }
+
+    tree.root = level[0];
+    tree.size = keys.length;
+    return tree;
+  }
+
+  // O(log n)
+  public int get(int key) {
+    return getOrDefault(key, 0);
+  }
+
+  // O(log n)
+  public int getOrDefault(int key, int defaultValue) {
+    var leaf = findLeaf(key);
+    var index = lowerBound(leaf.keys, leaf.count, key);
+    return index < leaf.count && leaf.keys[index] == key ? leaf.values[index] : defaultValue;
+  }
+
+  // O(log n)
+  public boolean containsKey(int key) {
+    var leaf = findLeaf(key);
+    var index = lowerBound(leaf.keys, leaf.count, key);
+    return index < leaf.count && leaf.keys[index] == key;
+  }
+
+  // O(log n). Replaces the value if the key is already there.
+  public void put(int key, int value) {
+    insert(root, key, value);
+    if (splitNode == null)
+      return;
+
+    // The root split, so the tree grows one level taller.
+    var newRoot = new Inner(fanout);
+    newRoot.keys[0] = splitKey;
+    newRoot.children[0] = root;
+    newRoot.children[1] = splitNode;
+    newRoot.count = 1;
+    root = newRoot;
+    splitNode = null;
+  }
+
+  // O(log n). Returns false if the key wasn't there.
+  public boolean remove(int key) {
+    if (!remove(root, key))
+      return false;
+
+    // If the root has a single child left, that child becomes the root
+    // and the tree gets one level shorter.
+    if (root instanceof Inner && root.count == 0)
+      root = ((Inner) root).children[0];
+    return true;
+  }
+
+  // O(log n + k), where k is the number of keys visited. Visits the keys
+  // from `from` (inclusive) to `to` (exclusive) in ascending order.
+  public void forEach(int from, int to, EntryVisitor visitor) {
+    var leaf = findLeaf(from);
+    var index = lowerBound(leaf.keys, leaf.count, from);
+
+    while (leaf != null) {
+      for (; index < leaf.count; index++) {
+        if (leaf.keys[index] >= to)
+          return;
+        visitor.visit(leaf.keys[index], leaf.values[index]);
+      }
+      leaf = leaf.next;
+      index = 0;
+    }
+  }
+
+  // O(n), in ascending order of keys.
+  public void forEach(EntryVisitor visitor) {
+    for (var leaf = firstLeaf(); leaf != null; leaf = leaf.next)
+      for (var i = 0; i < leaf.count; i++)
+        visitor.visit(leaf.keys[i], leaf.values[i]);
+  }
+
+  // O(log n)
+  public int firstKey() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return firstLeaf().keys[0];
+  }
+
+  // O(log n)
+  public int lastKey() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    var node = root;
+    while (node instanceof Inner)
+      node = ((Inner) node).children[node.count];
+    return node.keys[node.count - 1];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // The number of levels, counting the leaves.
+  public int height() {
+    var height = 1;
+    for (var node = root; node instanceof Inner; node = ((Inner) node).children[0])
+      height++;
+    return height;
+  }
+
+  // The number of keys that are smaller than the given one (the index
+  // of the first key >= key).
+  //
+  // We first halve the range without branches: the ternary turns into
+  // a conditional move, so there is nothing for the CPU to mispredict.
+  // Once the range is small, we count the smaller keys in it. That loop
+  // has no branches either and reads consecutive ints, so the JIT can
+  // unroll it (and vectorize it, where it knows how).
+  private static int lowerBound(int[] keys, int count, int key) {
+    var base = 0;
+    var length = count;
+    while (length > LINEAR_SEARCH_SIZE) {
+      var half = length >>> 1;
+      base = keys[base + half] < key ? base + half : base;
+      length -= half;
+    }
+
+    var smaller = 0;
+    for (var i = base; i < base + length; i++)
+      smaller += keys[i] < key ? 1 : 0;
+    return base + smaller;
+  }
+
+  // The child of an inner node whose keys can include the given key.
+  private static int childIndex(Inner node, int key) {
+    var index = lowerBound(node.keys, node.count, key);
+    return index < node.count && node.keys[index] == key ? index + 1 : index;
+  }
+
+  private Leaf findLeaf(int key) {
+    var node = root;
+    while (node instanceof Inner) {
+      var inner = (Inner) node;
+      node = inner.children[childIndex(inner, key)];
+    }
+    return (Leaf) node;
+  }
+
+  private Leaf firstLeaf() {
+    var node = root;
+    while (node instanceof Inner)
+      node = ((Inner) node).children[0];
+    return (Leaf) node;
+  }
+
+  private void insert(Node node, int key, int value) {
+    if (node instanceof Leaf) {
+      insertIntoLeaf((Leaf) node, key, value);
+      return;
+    }
+
+    var inner = (Inner) node;
+    var index = childIndex(inner, key);
+    insert(inner.children[index], key, value);
+    if (splitNode == null)
+      return;
+
+    // The child split: its new sibling goes right after it.
+    shiftRight(inner.keys, index, inner.count);
+    shiftRight(inner.children, index + 1, inner.count + 1);
+    inner.keys[index] = splitKey;
+    inner.children[index + 1] = splitNode;
+    inner.count++;
+    splitNode = null;
+
+    if (inner.count > fanout)
+      splitInner(inner);
+  }
+
+  private void insertIntoLeaf(Leaf leaf, int key, int value) {
+    var index = lowerBound(leaf.keys, leaf.count, key);
+    if (index < leaf.count && leaf.keys[index] == key) {
+      leaf.values[index] = value;
+      return;
+    }
+
+    shiftRight(leaf.keys, index, leaf.count);
+    shiftRight(leaf.values, index, leaf.count);
+    leaf.keys[index] = key;
+    leaf.values[index] = value;
+    leaf.count++;
+    size++;
+
+    if (leaf.count > fanout)
+      splitLeaf(leaf);
+  }
+
+  // The upper half moves to a new leaf, which we link in after this one.
+  private void splitLeaf(Leaf leaf) {
+    var middle = leaf.count / 2;
+    var right = new Leaf(fanout);
+    right.count = leaf.count - middle;
+    System.arraycopy(leaf.keys, middle, right.keys, 0, right.count);
+    System.arraycopy(leaf.values, middle, right.values, 0, right.count);
+    leaf.count = middle;
+
+    right.next = leaf.next;
+    leaf.next = right;
+
+    splitNode = right;
+    splitKey = right.keys[0];
+  }
+
+  // The middle key moves up to the parent; the keys and children after
+  // it move to a new node.
+  private void splitInner(Inner inner) {
+    var middle = inner.count / 2;
+    var right = new Inner(fanout);
+    right.count = inner.count - middle - 1;
+    System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+    System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+
+    splitKey = inner.keys[middle];
+    splitNode = right;
+
+    // Drop the references we moved, so the garbage collector doesn't
+    // keep them alive through this node.
+    for (var i = middle + 1; i <= inner.count; i++)
+      inner.children[i] = null;
+    inner.count = middle;
+  }
+
+  private boolean remove(Node node, int key) {
+    if (node instanceof Leaf) {
+      var leaf = (Leaf) node;
+      var index = lowerBound(leaf.keys, leaf.count, key);
+      if (index == leaf.count || leaf.keys[index] != key)
+        return false;
+
+      shiftLeft(leaf.keys, index + 1, leaf.count);
+      shiftLeft(leaf.values, index + 1, leaf.count);
+      leaf.count--;
+      size--;
+      return true;
+    }
+
+    var inner = (Inner) node;
+    var index = childIndex(inner, key);
+    if (!remove(inner.children[index], key))
+      return false;
+
+    if (inner.children[index].count < minKeys)
+      rebalance(inner, index);
+    return true;
+  }
+
+  // The child at the given index has too few keys. If a sibling can
+  // spare one, we borrow it; otherwise the sibling has few keys as well,
+  // so the two fit in one node and we merge them.
+  private void rebalance(Inner parent, int index) {
+    var left = index > 0 ? parent.children[index - 1] : null;
+    var right = index < parent.count ? parent.children[index + 1] : null;
+
+    if (left != null && left.count > minKeys)
+      borrowFromLeft(parent, index);
+    else if (right != null && right.count > minKeys)
+      borrowFromRight(parent, index);
+    else if (left != null)
+      merge(parent, index - 1);
+    else if (right != null)
+      merge(parent, index);
+  }
+
+  private void borrowFromLeft(Inner parent, int index) {
+    var child = parent.children[index];
+    var left = parent.children[index - 1];
+    shiftRight(child.keys, 0, child.count);
+
+    if (child instanceof Leaf) {
+      var leaf = (Leaf) child;
+      var leftLeaf = (Leaf) left;
+      shiftRight(leaf.values, 0, leaf.count);
+      leaf.keys[0] = leftLeaf.keys[leftLeaf.count - 1];
+      leaf.values[0] = leftLeaf.values[leftLeaf.count - 1];
+      parent.keys[index - 1] = leaf.keys[0];
+    } else {
+      // The separator comes down, and the left sibling's last key goes
+      // up to take its place, along with its last child.
+      var inner = (Inner) child;
+      var leftInner = (Inner) left;
+      shiftRight(inner.children, 0, inner.count + 1);
+      inner.keys[0] = parent.keys[index - 1];
+      inner.children[0] = leftInner.children[leftInner.count];
+      leftInner.children[leftInner.count] = null;
+      parent.keys[index - 1] = leftInner.keys[leftInner.count - 1];
+    }
+
+    child.count++;
+    left.count--;
+  }
+
+  private void borrowFromRight(Inner parent, int index) {
+    var child = parent.children[index];
+    var right = parent.children[index + 1];
+
+    if (child instanceof Leaf) {
+      var leaf = (Leaf) child;
+      var rightLeaf = (Leaf) right;
+      leaf.keys[leaf.count] = rightLeaf.keys[0];
+      leaf.values[leaf.count] = rightLeaf.values[0];
+      shiftLeft(rightLeaf.keys, 1, rightLeaf.count);
+      shiftLeft(rightLeaf.values, 1, rightLeaf.count);
+      parent.keys[index] = rightLeaf.keys[0];
+    } else {
+      var inner = (Inner) child;
+      var rightInner = (Inner) right;
+      inner.keys[inner.count] = parent.keys[index];
+      inner.children[inner.count + 1] = rightInner.children[0];
+      parent.keys[index] = rightInner.keys[0];
+      shiftLeft(rightInner.keys, 1, rightInner.count);
+      shiftLeft(rightInner.children, 1, rightInner.count + 1);
+      rightInner.children[rightInner.count] = null;
+    }
+
+    child.count++;
+    right.count--;
+  }
+
+  // Moves everything from the child at index + 1 into the child at index,
+  // and removes the separator between them from the parent.
+  private void merge(Inner parent, int index) {
+    var left = parent.children[index];
+    var right = parent.children[index + 1];
+
+    if (left instanceof Leaf) {
+      var leftLeaf = (Leaf) left;
+      var rightLeaf = (Leaf) right;
+      System.arraycopy(rightLeaf.keys, 0, leftLeaf.keys, leftLeaf.count, rightLeaf.count);
+      System.arraycopy(rightLeaf.values, 0, leftLeaf.values, leftLeaf.count, rightLeaf.count);
+      leftLeaf.count += rightLeaf.count;
+      leftLeaf.next = rightLeaf.next;
+    } else {
+      // In inner nodes, the separator comes down between the two halves.
+      var leftInner = (Inner) left;
+      var rightInner = (Inner) right;
+      leftInner.keys[leftInner.count] = parent.keys[index];
+      System.arraycopy(rightInner.keys, 0, leftInner.keys, leftInner.count + 1, rightInner.count);
+      System.arraycopy(rightInner.children, 0, leftInner.children, leftInner.count + 1, rightInner.count + 1);
+      leftInner.count += rightInner.count + 1;
+    }
+
+    shiftLeft(parent.keys, index + 1, parent.count);
+    shiftLeft(parent.children, index + 2, parent.count + 1);
+    parent.children[parent.count] = null;
+    parent.count--;
+  }
+
+  // Moves items [from, end) one place to the right.
+  private static void shiftRight(int[] items, int from, int end) {
+    System.arraycopy(items, from, items, from + 1, end - from);
+  }
+
+  private static void shiftRight(Node[] items, int from, int end) {
+    System.arraycopy(items, from, items, from + 1, end - from);
+  }
+
+  // Moves items [from, end) one place to the left.
+  private static void shiftLeft(int[] items, int from, int end) {
+    System.arraycopy(items, from, items, from - 1, end - from);
+  }
+
+  private static void shiftLeft(Node[] items, int from, int end) {
+    System.arraycopy(items, from, items, from - 1, end - from);
+  }
+}
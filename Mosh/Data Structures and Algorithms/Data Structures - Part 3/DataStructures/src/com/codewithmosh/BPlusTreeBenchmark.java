@@ -0,0 +1,128 @@
+package com.codewithmosh;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+// Compares BPlusTree (with a few fanouts) with AVLTree and TreeMap on
+// ITEMS keys, far more than fit in the CPU caches:
+//
+// - building the index with random inserts (and BPlusTree.fromSorted)
+// - point lookups, half of them misses
+// - range scans of about RANGE_KEYS keys from a random start
+//
+// AVLTree has no range queries, so it only takes part in the first two.
+// This is a plain main() benchmark; take the numbers as a rough
+// comparison and ignore the first (warm-up) round.
+public class BPlusTreeBenchmark {
+  private static final int ITEMS = 2_000_000;
+  private static final int QUERIES = 2_000_000;
+  private static final int RANGE_QUERIES = 200_000;
+  private static final int RANGE_KEYS = 100;
+  private static final int[] FANOUTS = { 64, 128, 256 };
+
+  private interface RangeScanner {
+    long scan(int from, int to);
+  }
+
+  public static void main(String[] args) {
+    var random = new Random(42);
+
+    // Even numbers only, in random order, so odd queries are misses.
+    var keys = new int[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      keys[i] = 2 * i;
+    for (var i = ITEMS - 1; i > 0; i--) {
+      var j = random.nextInt(i + 1);
+      var temp = keys[i];
+      keys[i] = keys[j];
+      keys[j] = temp;
+    }
+
+    var queries = new int[QUERIES];
+    for (var i = 0; i < QUERIES; i++)
+      queries[i] = random.nextInt(2 * ITEMS);
+
+    System.out.println("Build (random inserts)");
+
+    var start = System.nanoTime();
+    var avl = new AVLTree();
+    for (var key : keys)
+      avl.insert(key);
+    reportBuild("AVLTree       ", start);
+
+    start = System.nanoTime();
+    var treeMap = new TreeMap<Integer, Integer>();
+    for (var key : keys)
+      treeMap.put(key, key);
+    reportBuild("TreeMap       ", start);
+
+    var trees = new BPlusTree[FANOUTS.length];
+    for (var i = 0; i < FANOUTS.length; i++) {
+      start = System.nanoTime();
+      trees[i] = new BPlusTree(FANOUTS[i]);
+      for (var key : keys)
+        trees[i].put(key, key);
+      reportBuild(String.format("B+ tree (%3d) ", FANOUTS[i]), start);
+    }
+
+    var sorted = new int[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      sorted[i] = 2 * i;
+    start = System.nanoTime();
+    BPlusTree.fromSorted(sorted, sorted, BPlusTree.DEFAULT_FANOUT);
+    reportBuild("B+ fromSorted ", start);
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      System.out.println("  Point lookups");
+      lookups("AVLTree       ", queries, avl::contains);
+      lookups("TreeMap       ", queries, treeMap::containsKey);
+      for (var i = 0; i < FANOUTS.length; i++)
+        lookups(String.format("B+ tree (%3d) ", FANOUTS[i]), queries, trees[i]::containsKey);
+
+      System.out.println("  Range scans");
+      ranges("TreeMap       ", queries, (from, to) -> {
+        var sum = new long[1];
+        treeMap.subMap(from, to).forEach((key, value) -> sum[0] += value);
+        return sum[0];
+      });
+      for (var i = 0; i < FANOUTS.length; i++) {
+        var tree = trees[i];
+        ranges(String.format("B+ tree (%3d) ", FANOUTS[i]), queries, (from, to) -> {
+          var sum = new long[1];
+          tree.forEach(from, to, (key, value) -> sum[0] += value);
+          return sum[0];
+        });
+      }
+    }
+  }
+
+  private static void reportBuild(String name, long start) {
+    System.out.printf("  %s: %7.1f ms%n", name, (System.nanoTime() - start) / 1_000_000.0);
+  }
+
+  private static void lookups(String name, int[] queries, IntPredicate contains) {
+    var found = 0;
+    var start = System.nanoTime();
+    for (var query : queries)
+      if (contains.test(query))
+        found++;
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("    %s: %7.1f ns/lookup (%d of %d found)%n",
+            name, (double) nanos / queries.length, found, queries.length);
+  }
+
+  private static void ranges(String name, int[] queries, RangeScanner scanner) {
+    long total = 0;
+    var start = System.nanoTime();
+    for (var i = 0; i < RANGE_QUERIES; i++)
+      total += scanner.scan(queries[i], queries[i] + 2 * RANGE_KEYS);
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("    %s: %7.1f ns/scan (checksum %d)%n",
+            name, (double) nanos / RANGE_QUERIES, total);
+  }
+}
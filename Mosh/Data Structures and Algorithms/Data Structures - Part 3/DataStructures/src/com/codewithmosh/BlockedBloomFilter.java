@@ -0,0 +1,154 @@
+package com.codewithmosh;
+
+// A Bloom filter whose bits are split into 512-bit blocks, the size of
+// a cache line.
+//
+// A classic Bloom filter sets k bits spread over the whole bit array
+// for every key, so a lookup can touch k different cache lines. Here
+// the hash first picks one block, and all k bits of the key go into that
+// block. A lookup costs a single cache miss, whatever k is.
+//
+// The k bit positions come from one hash: we multiply it by an odd
+// constant again and again, and the top 9 bits of every product pick a
+// bit in the block. We tried double hashing (positions h1, h1 + h2,
+// h1 + 2 * h2, ...) first, but in a block this small the positions of
+// different keys line up too often: at low false positive rates, it
+// gave 3 to 4 times more false positives than independent positions.
+// The products give about as many as truly independent positions
+// would, for the same one multiplication per bit.
+//
+// Blocks don't fill up evenly: some get more keys than others, and the
+// fuller ones give more false positives. So we need a few more bits than
+// a classic filter with the same false positive rate. The constructor
+// computes the rate of the blocked layout (see blockedRate()) and grows
+// the array until the requested rate is met.
+//
+// Keys can't be removed: a bit may be shared by several keys.
+public class BlockedBloomFilter implements MembershipFilter {
+  private static final int BLOCK_BITS = 512;
+  private static final int WORDS_PER_BLOCK = BLOCK_BITS / Long.SIZE;
+  private static final int BIT_SHIFT = Long.SIZE - 9; // 2^9 = BLOCK_BITS
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+  private static final int MAX_HASHES = 16;
+  private static final int MAX_BLOCKS = Integer.MAX_VALUE / WORDS_PER_BLOCK;
+
+  private final long[] words;
+  private final int blocks;
+  private final int hashes;
+  private int count;
+
+  public BlockedBloomFilter(int expectedItems, double falsePositiveRate) {
+    if (expectedItems < 1)
+      throw new IllegalArgumentException("Expected items must be 1 or greater.");
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+
+    // Start with the size of a classic Bloom filter:
+    // m = -n ln(p) / ln(2)^2 bits and k = (m / n) ln(2) hashes.
+    var bits = -expectedItems * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    var blocks = blocksFor(bits);
+    while (blocks < MAX_BLOCKS &&
+            blockedRate(blocks, expectedItems, hashesFor(blocks, expectedItems)) > falsePositiveRate)
+      blocks = blocksFor(blocks * (double) BLOCK_BITS * 1.05);
+
+    this.blocks = blocks;
+    this.hashes = hashesFor(blocks, expectedItems);
+    this.words = new long[blocks * WORDS_PER_BLOCK];
+  }
+
+  // O(k), one cache line.
+  @Override
+  public boolean add(long hash) {
+    var first = blockOf(hash) * WORDS_PER_BLOCK;
+    var bits = hash;
+    for (var i = 0; i < hashes; i++) {
+      bits *= MULTIPLIER;
+      var bit = (int) (bits >>> BIT_SHIFT);
+      words[first + (bit >>> 6)] |= 1L << bit;
+    }
+    count++;
+    return true;
+  }
+
+  // O(k), one cache line. Stops at the first bit that isn't set.
+  @Override
+  public boolean mightContain(long hash) {
+    var first = blockOf(hash) * WORDS_PER_BLOCK;
+    var bits = hash;
+    for (var i = 0; i < hashes; i++) {
+      bits *= MULTIPLIER;
+      var bit = (int) (bits >>> BIT_SHIFT);
+      if ((words[first + (bit >>> 6)] & (1L << bit)) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public long sizeInBytes() {
+    return (long) words.length * Long.BYTES;
+  }
+
+  @Override
+  public double falsePositiveRate() {
+    return blockedRate(blocks, count, hashes);
+  }
+
+  public int hashes() {
+    return hashes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("BlockedBloomFilter[%d items, %d bytes, %d hashes, fpr %.4f%%]",
+            count, sizeInBytes(), hashes, falsePositiveRate() * 100);
+  }
+
+  // The block comes from the high 32 bits of the hash. Multiplying and
+  // keeping the high half maps them onto 0..blocks - 1 without a division.
+  private int blockOf(long hash) {
+    return (int) (((hash >>> 32) * blocks) >>> 32);
+  }
+
+  private static int blocksFor(double bits) {
+    return (int) Math.min(MAX_BLOCKS, Math.max(1, Math.ceil(bits / BLOCK_BITS)));
+  }
+
+  private static int hashesFor(int blocks, int items) {
+    var bitsPerItem = (double) blocks * BLOCK_BITS / items;
+    return (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerItem * Math.log(2))));
+  }
+
+  // The false positive rate of a blocked filter holding `items` keys.
+  //
+  // The number of keys in a block follows a Poisson distribution with
+  // mean items / blocks. A block with j keys has each of its bits set
+  // with probability 1 - (1 - 1/512)^(k j), and a false positive needs
+  // all k bits of the key we look for to be set. We add this up over j,
+  // weighted by the probability that a block has j keys.
+  private static double blockedRate(int blocks, long items, int hashes) {
+    if (items == 0)
+      return 0;
+
+    var mean = (double) items / blocks;
+    var last = (int) Math.ceil(mean + 10 * Math.sqrt(mean) + 10);
+    var logMean = Math.log(mean);
+    var logBitStaysClear = Math.log1p(-1.0 / BLOCK_BITS);
+
+    // Poisson probabilities, in logs so that big means don't underflow.
+    var logProbability = -mean;
+    var rate = 0.0;
+    for (var j = 0; j <= last; j++) {
+      if (j > 0)
+        logProbability += logMean - Math.log(j);
+      var bitSet = -Math.expm1(hashes * j * logBitStaysClear);
+      rate += Math.exp(logProbability) * Math.pow(bitSet, hashes);
+    }
+    return Math.min(1, rate);
+  }
+}
@@ -1,11 +1,17 @@
 package com.codewithmosh;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 public class CharFinder {
+  private static final int READ_SIZE = 8192;
+  private static final int ALPHABET_SIZE = 65536;
+
   public char findFirstNonRepeatingChar(String str) {
     Map<Character, Integer> map = new HashMap<>();
 
@@ -35,4 +41,236 @@ public class CharFinder {
     return Character.MIN_VALUE;
   }
 
+  // The versions below read their input once, so they work on streams
+  // much larger than the heap, and they don't box any characters.
+  //
+  // Instead of a map of counts, we keep one table entry per possible
+  // char (there are 65536):
+  //   0             the char hasn't been seen
+  //   position + 1  the char has been seen once, at position
+  //   -1            the char has been seen more than once
+  // At the end, the first non-repeating char is the one with the
+  // smallest position, which we find with one pass over the table
+  // (constant time, however long the input is).
+
+  // O(n)
+  public char findFirstNonRepeatingChar(Reader reader) throws IOException {
+    var positions = new long[ALPHABET_SIZE];
+    var buffer = new char[READ_SIZE];
+    long position = 0;
+
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      for (var i = 0; i < count; i++) {
+        var ch = buffer[i];
+        positions[ch] = positions[ch] == 0 ? position + i + 1 : -1;
+      }
+      position += count;
+    }
+
+    return firstSeenOnce(positions);
+  }
+
+  // O(n). Reads buffer[position .. limit) without changing its position.
+  public char findFirstNonRepeatingChar(CharBuffer buffer) {
+    var positions = new long[ALPHABET_SIZE];
+    for (var i = buffer.position(); i < buffer.limit(); i++) {
+      var ch = buffer.get(i);
+      positions[ch] = positions[ch] == 0 ? i + 1 : -1;
+    }
+
+    return firstSeenOnce(positions);
+  }
+
+  // O(n), but stops at the first repeated char. We only need to know
+  // whether we've seen a char, so the table is a set of 65536 bits
+  // (8 KB).
+  public char findFirstRepeatedChar(Reader reader) throws IOException {
+    var seen = new long[ALPHABET_SIZE / 64];
+    var buffer = new char[READ_SIZE];
+
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      for (var i = 0; i < count; i++) {
+        var ch = buffer[i];
+        var bit = 1L << ch;
+        if ((seen[ch >>> 6] & bit) != 0)
+          return ch;
+        seen[ch >>> 6] |= bit;
+      }
+    }
+
+    return Character.MIN_VALUE;
+  }
+
+  public char findFirstRepeatedChar(CharBuffer buffer) {
+    var seen = new long[ALPHABET_SIZE / 64];
+    for (var i = buffer.position(); i < buffer.limit(); i++) {
+      var ch = buffer.get(i);
+      var bit = 1L << ch;
+      if ((seen[ch >>> 6] & bit) != 0)
+        return ch;
+      seen[ch >>> 6] |= bit;
+    }
+
+    return Character.MIN_VALUE;
+  }
+
+  // The chars above treat a character outside the Basic Multilingual
+  // Plane (emoji, for example) as two separate surrogate chars. These
+  // versions work on full code points instead. There are over a million
+  // code points, but a text only uses a few of them, so the table is a
+  // small open-addressing hash table (see CodePointTable) instead of an
+  // array. Positions count code points. They return -1 if there is no
+  // such code point.
+
+  // O(n)
+  public int findFirstNonRepeatingCodePoint(Reader reader) throws IOException {
+    var table = new CodePointTable();
+    var codePoints = new CodePointReader(reader);
+    long position = 0;
+
+    int codePoint;
+    while ((codePoint = codePoints.next()) != -1) {
+      var slot = table.slotOf(codePoint);
+      table.positions[slot] = table.positions[slot] == 0 ? position + 1 : -1;
+      position++;
+    }
+
+    var result = -1;
+    var first = Long.MAX_VALUE;
+    for (var slot = 0; slot < table.keys.length; slot++) {
+      var seenAt = table.positions[slot];
+      if (seenAt > 0 && seenAt < first) {
+        first = seenAt;
+        result = table.keys[slot] - 1;
+      }
+    }
+
+    return result;
+  }
+
+  // O(n)
+  public int findFirstRepeatedCodePoint(Reader reader) throws IOException {
+    var table = new CodePointTable();
+    var codePoints = new CodePointReader(reader);
+
+    int codePoint;
+    while ((codePoint = codePoints.next()) != -1) {
+      var slot = table.slotOf(codePoint);
+      if (table.positions[slot] != 0)
+        return codePoint;
+      table.positions[slot] = 1;
+    }
+
+    return -1;
+  }
+
+  private char firstSeenOnce(long[] positions) {
+    var result = Character.MIN_VALUE;
+    var first = Long.MAX_VALUE;
+    for (var ch = 0; ch < positions.length; ch++) {
+      if (positions[ch] > 0 && positions[ch] < first) {
+        first = positions[ch];
+        result = (char) ch;
+      }
+    }
+
+    return result;
+  }
+
+  // Maps code points to slots with linear probing. keys[slot] holds the
+  // code point + 1 (so 0 means empty), and positions[slot] is the value
+  // the caller keeps for it. The table doubles when it's half full.
+  private static class CodePointTable {
+    private int[] keys = new int[1024];
+    private long[] positions = new long[1024];
+    private int count;
+
+    // Returns the slot of codePoint, adding it if it isn't there.
+    public int slotOf(int codePoint) {
+      var slot = find(keys, codePoint);
+      if (keys[slot] != 0)
+        return slot;
+
+      if (count >= keys.length / 2) {
+        grow();
+        slot = find(keys, codePoint);
+      }
+
+      keys[slot] = codePoint + 1;
+      count++;
+      return slot;
+    }
+
+    private void grow() {
+      var oldKeys = keys;
+      var oldPositions = positions;
+      keys = new int[oldKeys.length * 2];
+      positions = new long[oldKeys.length * 2];
+
+      for (var i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] == 0)
+          continue;
+        var slot = find(keys, oldKeys[i] - 1);
+        keys[slot] = oldKeys[i];
+        positions[slot] = oldPositions[i];
+      }
+    }
+
+    // Returns the slot that holds codePoint, or the empty slot where it
+    // belongs. The multiplier spreads nearby code points (the letters of
+    // one script) over the table.
+    private static int find(int[] keys, int codePoint) {
+      var mask = keys.length - 1;
+      var hash = codePoint * 0x9E3779B9;
+      var slot = (hash ^ (hash >>> 16)) & mask;
+      while (keys[slot] != 0 && keys[slot] != codePoint + 1)
+        slot = (slot + 1) & mask;
+      return slot;
+    }
+  }
+
+  // Reads a Reader one code point at a time, joining surrogate pairs
+  // even when they are split between two reads.
+  private static class CodePointReader {
+    private final Reader reader;
+    private final char[] buffer = new char[READ_SIZE];
+    private int position;
+    private int count;
+
+    public CodePointReader(Reader reader) {
+      this.reader = reader;
+    }
+
+    // Returns -1 at the end of the input.
+    public int next() throws IOException {
+      var high = nextChar();
+      if (high == -1 || !Character.isHighSurrogate((char) high))
+        return high;
+
+      var low = nextChar();
+      if (low == -1)
+        return high;
+      if (!Character.isLowSurrogate((char) low)) {
+        position--;
+        return high;
+      }
+
+      return Character.toCodePoint((char) high, (char) low);
+    }
+
+    private int nextChar() throws IOException {
+      if (position == count) {
+        count = reader.read(buffer);
+        position = 0;
+        if (count == -1) {
+          count = 0;
+          return -1;
+        }
+      }
+
+      return buffer[position++];
+    }
+  }
 }
@@ -0,0 +1,186 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// An arithmetic expression compiled by Expression.compile() into a flat
+// postfix program, ready to be evaluated many times with different
+// variables.
+//
+// A postfix program normally runs on a stack. But the stack depth at
+// every instruction is known when we compile, so each instruction
+// already knows which slot of the stack (which "register") it reads and
+// writes. Evaluating is a single loop over the instructions with plain
+// array accesses, and nothing is allocated per call: the registers are
+// reused (one array per thread).
+//
+// Variables are numbered in the order they first appear in the source;
+// variables() returns their names in that order.
+public class CompiledExpression {
+  static final int CONSTANT = 0;
+  static final int VARIABLE = 1;
+  static final int ADD = 2;
+  static final int SUBTRACT = 3;
+  static final int MULTIPLY = 4;
+  static final int DIVIDE = 5;
+  static final int REMAINDER = 6;
+  static final int POWER = 7;
+  static final int NEGATE = 8;
+
+  // Rows evaluated together by the batch version.
+  private static final int BLOCK_SIZE = 256;
+
+  private final String source;
+  private final List<String> variables;
+  private final int[] operations;
+  private final int[] operands;     // constant or variable index
+  private final int[] targets;      // the register the result goes to
+  private final double[] constants;
+  private final int registerCount;
+
+  private final ThreadLocal<double[]> registers;
+  private final ThreadLocal<double[][]> blockRegisters;
+
+  CompiledExpression(String source, List<String> variables,
+                     int[] operations, int[] operands, int[] targets,
+                     double[] constants, int registerCount) {
+    this.source = source;
+    this.variables = Collections.unmodifiableList(variables);
+    this.operations = operations;
+    this.operands = operands;
+    this.targets = targets;
+    this.constants = constants;
+    this.registerCount = registerCount;
+
+    registers = ThreadLocal.withInitial(() -> new double[registerCount]);
+    blockRegisters = ThreadLocal.withInitial(() -> new double[registerCount][BLOCK_SIZE]);
+  }
+
+  public String source() {
+    return source;
+  }
+
+  public List<String> variables() {
+    return variables;
+  }
+
+  // Returns -1 if the expression doesn't use the variable.
+  public int indexOf(String variable) {
+    return variables.indexOf(variable);
+  }
+
+  public int registerCount() {
+    return registerCount;
+  }
+
+  // O(k) for k instructions. values[i] is the value of variables().get(i).
+  public double evaluate(double[] values) {
+    return evaluate(values, registers.get());
+  }
+
+  // Same, with registers the caller provides (at least registerCount()
+  // long), for callers that manage their own scratch space.
+  public double evaluate(double[] values, double[] registers) {
+    for (var pc = 0; pc < operations.length; pc++) {
+      var target = targets[pc];
+      switch (operations[pc]) {
+        case CONSTANT:
+          registers[target] = constants[operands[pc]];
+          break;
+        case VARIABLE:
+          registers[target] = values[operands[pc]];
+          break;
+        case ADD:
+          registers[target] += registers[target + 1];
+          break;
+        case SUBTRACT:
+          registers[target] -= registers[target + 1];
+          break;
+        case MULTIPLY:
+          registers[target] *= registers[target + 1];
+          break;
+        case DIVIDE:
+          registers[target] /= registers[target + 1];
+          break;
+        case REMAINDER:
+          registers[target] %= registers[target + 1];
+          break;
+        case POWER:
+          registers[target] = Math.pow(registers[target], registers[target + 1]);
+          break;
+        case NEGATE:
+          registers[target] = -registers[target];
+          break;
+      }
+    }
+
+    return registers[0];
+  }
+
+  // Evaluates the expression for every row of a table stored by column:
+  // columns[i][row] is the value of variable i in that row, and the
+  // result goes to results[row] (for results.length rows).
+  //
+  // Evaluating row by row would go through the switch once per
+  // instruction per row. Instead, we take BLOCK_SIZE rows at a time
+  // and run every instruction over all of them, so each instruction is
+  // a simple loop over arrays that the JIT compiler can turn into SIMD
+  // instructions.
+  public void evaluate(double[][] columns, double[] results) {
+    var registers = blockRegisters.get();
+
+    for (var start = 0; start < results.length; start += BLOCK_SIZE) {
+      var count = Math.min(BLOCK_SIZE, results.length - start);
+
+      for (var pc = 0; pc < operations.length; pc++) {
+        var target = registers[targets[pc]];
+        var next = targets[pc] + 1 < registerCount ? registers[targets[pc] + 1] : null;
+
+        switch (operations[pc]) {
+          case CONSTANT:
+            Arrays.fill(target, 0, count, constants[operands[pc]]);
+            break;
+          case VARIABLE:
+            System.arraycopy(columns[operands[pc]], start, target, 0, count);
+            break;
+          case ADD:
+            for (var i = 0; i < count; i++)
+              target[i] += next[i];
+            break;
+          case SUBTRACT:
+            for (var i = 0; i < count; i++)
+              target[i] -= next[i];
+            break;
+          case MULTIPLY:
+            for (var i = 0; i < count; i++)
+              target[i] *= next[i];
+            break;
+          case DIVIDE:
+            for (var i = 0; i < count; i++)
+              target[i] /= next[i];
+            break;
+          case REMAINDER:
+            for (var i = 0; i < count; i++)
+              target[i] %= next[i];
+            break;
+          case POWER:
+            for (var i = 0; i < count; i++)
+              target[i] = Math.pow(target[i], next[i]);
+            break;
+          case NEGATE:
+            for (var i = 0; i < count; i++)
+              target[i] = -target[i];
+            break;
+        }
+      }
+
+      System.arraycopy(registers[0], 0, results, start, count);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return source;
+  }
+}
@@ -0,0 +1,360 @@
+package com.codewithmosh;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// A thread-safe, unbounded version of LinkedListQueue (the Michael-Scott
+// lock-free queue).
+//
+// The list always starts with a dummy node. head points to the dummy
+// and the first real item is head.next. Enqueue links a node after the
+// last node with a CAS on its next field, then swings tail. Dequeue
+// swings head to head.next with a CAS; the old next becomes the new
+// dummy. If a thread sees tail lagging behind (tail.next != null), it
+// helps by moving tail forward instead of waiting.
+//
+// Node recycling
+//
+// LinkedListQueue allocates a Node for every enqueue. Here, dequeued
+// nodes go into a per-thread free list and are reused by the next
+// enqueue on that thread. Reusing nodes is dangerous in a lock-free
+// structure: another thread may still hold a reference to a node we
+// have dequeued and be about to CAS on it. If the node has been
+// reused and is back in the queue, that CAS succeeds when it shouldn't
+// (the ABA problem). So we use hazard pointers: before a thread reads
+// through a node it publishes the node in one of its two hazard slots,
+// and a dequeued node is only reused once no hazard slot points to it.
+//
+// Threads that only dequeue collect more free nodes than they can use,
+// and threads that only enqueue have none. So a thread with too many
+// free nodes hands a chunk of them to a shared list, and a thread with
+// none takes a whole chunk at once.
+//
+// What is exact under concurrency
+//
+// - isEmpty() and peek() reflect the queue at one instant while they
+//   run, but another thread can change it right after they return.
+// - size() is approximate: the counter is updated after the item is
+//   linked or unlinked, so it can briefly lag behind the queue.
+// - toString() walks the list without protection and is only
+//   meaningful when no other thread is using the queue.
+public class ConcurrentLinkedListQueue {
+    private static class Node {
+        private int value;
+        private volatile Node next;
+
+        // Only used while the node sits in a free list.
+        private Node nextFree;
+
+        public Node(int value) {
+            this.value = value;
+        }
+
+        public boolean casNext(Node expected, Node node) {
+            return NEXT.compareAndSet(this, expected, node);
+        }
+    }
+
+    // Per-thread state: the two hazard slots plus the nodes this thread
+    // has dequeued (retired) and the ones it can reuse (free).
+    private static class ThreadRecord {
+        private volatile Node hazard0;
+        private volatile Node hazard1;
+        private ThreadRecord nextRecord;
+
+        private final ArrayList<Node> retired = new ArrayList<>();
+        private Node free;
+        private int freeCount;
+
+        public void clearHazards() {
+            hazard0 = null;
+            hazard1 = null;
+        }
+    }
+
+    private static final int CHUNK_SIZE = 64;
+    private static final int MIN_RETIRED_BEFORE_SCAN = 64;
+
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup()
+                    .findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AtomicReference<Node> head;
+    private final AtomicReference<Node> tail;
+    private final LongAdder count = new LongAdder();
+
+    private final AtomicReference<ThreadRecord> records = new AtomicReference<>();
+    private final AtomicInteger recordCount = new AtomicInteger();
+    private final ThreadLocal<ThreadRecord> localRecord =
+            ThreadLocal.withInitial(this::register);
+
+    // Chains of CHUNK_SIZE free nodes (linked by nextFree) that threads
+    // hand to each other.
+    private final ConcurrentLinkedQueue<Node> spareChunks = new ConcurrentLinkedQueue<>();
+
+    public ConcurrentLinkedListQueue() {
+        var dummy = new Node(0);
+        head = new AtomicReference<>(dummy);
+        tail = new AtomicReference<>(dummy);
+    }
+
+    // O(1)
+    public void enqueue(int item) {
+        var record = localRecord.get();
+        var node = allocate(record, item);
+        link(record, node, node);
+        count.increment();
+    }
+
+    // Links n items with a single CAS. The items are chained together
+    // privately first, so other threads see either none or all of them,
+    // in order.
+    public void enqueueAll(int[] items, int n) {
+        if (n <= 0)
+            return;
+
+        var record = localRecord.get();
+        var first = allocate(record, items[0]);
+        var last = first;
+        for (var i = 1; i < n; i++) {
+            var node = allocate(record, items[i]);
+            last.next = node;
+            last = node;
+        }
+
+        link(record, first, last);
+        count.add(n);
+    }
+
+    private void link(ThreadRecord record, Node first, Node last) {
+        while (true) {
+            var currentTail = tail.get();
+            record.hazard0 = currentTail;
+            if (tail.get() != currentTail)
+                continue;
+
+            var next = currentTail.next;
+            if (tail.get() != currentTail)
+                continue;
+
+            if (next != null) {
+                // Another enqueue linked its node but hasn't moved tail yet.
+                tail.compareAndSet(currentTail, next);
+                continue;
+            }
+
+            if (currentTail.casNext(null, first)) {
+                tail.compareAndSet(currentTail, last);
+                break;
+            }
+        }
+
+        record.hazard0 = null;
+    }
+
+    // O(1)
+    public int dequeue() {
+        var record = localRecord.get();
+
+        while (true) {
+            var first = head.get();
+            record.hazard0 = first;
+            if (head.get() != first)
+                continue;
+
+            var last = tail.get();
+            var next = first.next;
+            record.hazard1 = next;
+            if (head.get() != first)
+                continue;
+
+            if (next == null) {
+                record.clearHazards();
+                throw new IllegalStateException();
+            }
+
+            if (first == last) {
+                // tail is lagging behind; help it along before we move head.
+                tail.compareAndSet(last, next);
+                continue;
+            }
+
+            var value = next.value;
+            if (head.compareAndSet(first, next)) {
+                record.clearHazards();
+                retire(record, first);
+                count.decrement();
+                return value;
+            }
+        }
+    }
+
+    // O(1)
+    public int peek() {
+        var record = localRecord.get();
+
+        while (true) {
+            var first = head.get();
+            record.hazard0 = first;
+            if (head.get() != first)
+                continue;
+
+            var next = first.next;
+            record.hazard1 = next;
+            if (head.get() != first)
+                continue;
+
+            if (next == null) {
+                record.clearHazards();
+                throw new IllegalStateException();
+            }
+
+            // Read the value while hazard1 still keeps next from being
+            // recycled by another thread.
+            var value = next.value;
+            record.clearHazards();
+            return value;
+        }
+    }
+
+    // O(1), approximate under concurrency.
+    public int size() {
+        return (int) Math.max(0, count.sum());
+    }
+
+    // O(1)
+    public boolean isEmpty() {
+        var record = localRecord.get();
+
+        while (true) {
+            var first = head.get();
+            record.hazard0 = first;
+            if (head.get() != first)
+                continue;
+
+            // first can't be recycled (and its next reset) while hazard0
+            // points to it.
+            var empty = first.next == null;
+            record.hazard0 = null;
+            return empty;
+        }
+    }
+
+    private Node allocate(ThreadRecord record, int value) {
+        if (record.free == null) {
+            var chunk = spareChunks.poll();
+            if (chunk == null)
+                return new Node(value);
+
+            record.free = chunk;
+            record.freeCount = CHUNK_SIZE;
+        }
+
+        var node = record.free;
+        record.free = node.nextFree;
+        record.freeCount--;
+
+        node.nextFree = null;
+        node.value = value;
+        node.next = null;
+        return node;
+    }
+
+    private void retire(ThreadRecord record, Node node) {
+        record.retired.add(node);
+
+        var threshold = Math.max(MIN_RETIRED_BEFORE_SCAN, 4 * recordCount.get());
+        if (record.retired.size() >= threshold)
+            reclaim(record);
+    }
+
+    // Moves every retired node that no thread has in a hazard slot
+    // to this thread's free list.
+    private void reclaim(ThreadRecord record) {
+        var hazards = new ArrayList<Node>();
+        for (var r = records.get(); r != null; r = r.nextRecord) {
+            var h0 = r.hazard0;
+            var h1 = r.hazard1;
+            if (h0 != null)
+                hazards.add(h0);
+            if (h1 != null)
+                hazards.add(h1);
+        }
+
+        var retired = record.retired;
+        var kept = 0;
+        for (var i = 0; i < retired.size(); i++) {
+            var node = retired.get(i);
+            if (containsNode(hazards, node))
+                retired.set(kept++, node);
+            else
+                free(record, node);
+        }
+        retired.subList(kept, retired.size()).clear();
+    }
+
+    private static boolean containsNode(ArrayList<Node> nodes, Node node) {
+        for (var i = 0; i < nodes.size(); i++)
+            if (nodes.get(i) == node)
+                return true;
+
+        return false;
+    }
+
+    private void free(ThreadRecord record, Node node) {
+        node.nextFree = record.free;
+        record.free = node;
+        record.freeCount++;
+
+        if (record.freeCount < 2 * CHUNK_SIZE)
+            return;
+
+        // Give a chunk away to threads that enqueue more than they dequeue.
+        var chunk = record.free;
+        var last = chunk;
+        for (var i = 1; i < CHUNK_SIZE; i++)
+            last = last.nextFree;
+        record.free = last.nextFree;
+        record.freeCount -= CHUNK_SIZE;
+        last.nextFree = null;
+        spareChunks.offer(chunk);
+    }
+
+    // Records are never removed. A thread that dies leaves its record
+    // behind with empty hazard slots, which is harmless.
+    private ThreadRecord register() {
+        var record = new ThreadRecord();
+        do {
+            record.nextRecord = records.get();
+        } while (!records.compareAndSet(record.nextRecord, record));
+        recordCount.incrementAndGet();
+
+        return record;
+    }
+
+    // O(n)
+    @Override
+    public String toString() {
+        ArrayList<Integer> list = new ArrayList<>();
+
+        Node current = head.get().next;
+        while (current != null) {
+            list.add(current.value);
+            current = current.next;
+        }
+
+        return list.toString();
+    }
+}
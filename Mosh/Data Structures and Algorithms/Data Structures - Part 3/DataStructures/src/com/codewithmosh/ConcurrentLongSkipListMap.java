@@ -0,0 +1,571 @@
+package com.codewithmosh;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// An ordered map from long keys to values that any number of threads
+// can read and change at the same time, without locks.
+//
+// AVLTree keeps itself balanced with rotations, and a rotation changes
+// several nodes at once, so many writers would have to lock big parts
+// of the tree. A skip list gets the same O(log n) expected cost from
+// coin flips instead: every change is a single compareAndSet() on one
+// "next" pointer, and writers in different parts of the list never
+// touch the same pointer.
+//
+// The layout
+//
+// The entries sit in a sorted linked list (the base level). Above it,
+// some nodes get a tower of index entries: a quarter of the nodes get
+// one level, and every further level is half as likely as the one below
+// it. Each index level is a sorted linked list of its own that skips
+// over the nodes without a tower that high. A search starts on the top
+// level, moves right while the next key is smaller, then drops a level.
+//
+//   head -> 3 ------------------------> 21
+//     |     |                            |
+//   head -> 3 ---------> 12 -----------> 21
+//     |     |            |               |
+//   base -> 3 -> 7 -> 9 -> 12 -> 15 -> 18 -> 21 -> 25
+//
+// Towers are added after the node is in the base list and are only a
+// shortcut: a search that misses an index entry still finds the node.
+//
+// Deleting
+//
+// A node can't just be unlinked with one compareAndSet(): another
+// thread could be linking a new node after it at the same moment, and
+// the new node would be lost. So deleting takes three steps:
+//
+// 1. Set the node's value to null. From now on the key is gone.
+// 2. Link a marker node right after it. A node followed by a marker
+//    never gets a new successor, because inserts compareAndSet() the
+//    next pointer of their predecessor, and it no longer holds what
+//    they read.
+// 3. Unlink the node and its marker from the predecessor.
+//
+// Any thread that runs into a half-deleted node finishes steps 2 and 3
+// for it, and index entries of deleted nodes are unlinked by the
+// searches that pass them.
+//
+// Keys are primitive longs, so comparing two keys is a single
+// instruction instead of a call to compareTo() on two boxed objects
+// that may sit anywhere in memory. int keys widen to long for free.
+//
+// What is exact under concurrency
+//
+// - get(), put() and remove() take effect at a single instant.
+// - Iterators, forEach() and the range methods are weakly consistent:
+//   they never throw ConcurrentModificationException and never return
+//   a key twice, but they may or may not see changes made while they
+//   run.
+// - size() is approximate while other threads are changing the map.
+public class ConcurrentLongSkipListMap<V> implements Iterable<ConcurrentLongSkipListMap.Entry<V>> {
+  public interface EntryVisitor<V> {
+    void visit(long key, V value);
+  }
+
+  // A snapshot of one key and the value it had when we read it.
+  public static final class Entry<V> {
+    private final long key;
+    private final V value;
+
+    private Entry(long key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    public long getKey() {
+      return key;
+    }
+
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + value;
+    }
+  }
+
+  private static final class Node<V> {
+    private final long key;
+    private final boolean marker;
+    private volatile V value;      // null once the node is deleted
+    private volatile Node<V> next;
+
+    private Node(long key, V value, Node<V> next) {
+      this.key = key;
+      this.marker = false;
+      this.value = value;
+      this.next = next;
+    }
+
+    // A marker that says "the node before me is being unlinked".
+    private Node(Node<V> next) {
+      this.key = 0;
+      this.marker = true;
+      this.next = next;
+    }
+  }
+
+  private static final class Index<V> {
+    private final Node<V> node;
+    private final Index<V> down;
+    private volatile Index<V> right;
+
+    private Index(Node<V> node, Index<V> down, Index<V> right) {
+      this.node = node;
+      this.down = down;
+      this.right = right;
+    }
+  }
+
+  private static final VarHandle HEAD;
+  private static final VarHandle NEXT;
+  private static final VarHandle VALUE;
+  private static final VarHandle RIGHT;
+
+  static {
+    try {
+      var lookup = MethodHandles.lookup();
+      HEAD = lookup.findVarHandle(ConcurrentLongSkipListMap.class, "head", Index.class);
+      NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+      VALUE = lookup.findVarHandle(Node.class, "value", Object.class);
+      RIGHT = lookup.findVarHandle(Index.class, "right", Index.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  // The top-left index entry. Its node is the base header, which holds
+  // no key and comes before every real node.
+  private volatile Index<V> head = new Index<>(new Node<>(0, null, null), null, null);
+  private final LongAdder count = new LongAdder();
+
+  // O(log n) expected
+  public V get(long key) {
+    var node = findNode(key);
+    return node == null ? null : node.value;
+  }
+
+  // O(log n) expected
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  public V getOrDefault(long key, V defaultValue) {
+    var value = get(key);
+    return value == null ? defaultValue : value;
+  }
+
+  // O(log n) expected. Returns the previous value, or null.
+  public V put(long key, V value) {
+    return put(key, value, false);
+  }
+
+  // O(log n) expected. Returns the current value if the key is already
+  // there (and leaves it alone), or null if we added it.
+  public V putIfAbsent(long key, V value) {
+    return put(key, value, true);
+  }
+
+  // O(log n) expected. Returns the removed value, or null.
+  public V remove(long key) {
+    V removed = null;
+
+    search:
+    while (removed == null) {
+      var before = findPredecessor(key);
+      while (true) {
+        var node = before.next;
+        if (node == null)
+          break search;
+        if (node.marker)
+          break; // `before` is being deleted; search again.
+
+        var value = node.value;
+        if (value == null)
+          unlink(before, node);
+        else if (key > node.key)
+          before = node;
+        else if (key < node.key)
+          break search;
+        else if (VALUE.compareAndSet(node, value, null)) {
+          removed = value;
+          unlink(before, node);
+          break;
+        }
+      }
+    }
+
+    if (removed != null) {
+      findPredecessor(key); // Unlinks the index entries of the node.
+      tryReduceLevel();
+      count.decrement();
+    }
+    return removed;
+  }
+
+  // O(log n) expected. The entry with the smallest key >= key, or null.
+  public Entry<V> ceilingEntry(long key) {
+    for (var node = findCeiling(key); node != null; node = node.next) {
+      if (node.marker)
+        continue;
+      var value = node.value;
+      if (value != null)
+        return new Entry<>(node.key, value);
+    }
+    return null;
+  }
+
+  // O(log n) expected
+  public Entry<V> firstEntry() {
+    return ceilingEntry(Long.MIN_VALUE);
+  }
+
+  // O(log n + k), where k is the number of keys visited. Visits the keys
+  // from `from` (inclusive) to `to` (exclusive) in ascending order.
+  public void forEach(long from, long to, EntryVisitor<? super V> visitor) {
+    if (from >= to)
+      return;
+
+    for (var node = findCeiling(from); node != null; node = node.next) {
+      if (node.marker)
+        continue;
+      if (node.key >= to)
+        return;
+      var value = node.value;
+      if (value != null)
+        visitor.visit(node.key, value);
+    }
+  }
+
+  // O(n), in ascending order of keys.
+  public void forEach(EntryVisitor<? super V> visitor) {
+    for (var node = head.node.next; node != null; node = node.next) {
+      if (node.marker)
+        continue;
+      var value = node.value;
+      if (value != null)
+        visitor.visit(node.key, value);
+    }
+  }
+
+  @Override
+  public Iterator<Entry<V>> iterator() {
+    return new EntryIterator(head.node.next, Long.MAX_VALUE);
+  }
+
+  // The keys from `from` (inclusive) to `to` (exclusive).
+  public Iterator<Entry<V>> iterator(long from, long to) {
+    if (from >= to)
+      return new EntryIterator(null, 0);
+    return new EntryIterator(findCeiling(from), to - 1);
+  }
+
+  public int size() {
+    var size = count.sum();
+    return size < 0 ? 0 : (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  public boolean isEmpty() {
+    return firstEntry() == null;
+  }
+
+  // The height of the index towers, not counting the base level.
+  public int levels() {
+    var levels = 0;
+    for (var index = head.down; index != null; index = index.down)
+      levels++;
+    return levels;
+  }
+
+  // Returns the last node with a key < key (or the base header). Along
+  // the way, unlinks the index entries of deleted nodes.
+  private Node<V> findPredecessor(long key) {
+    var index = head;
+    while (true) {
+      Index<V> right;
+      while ((right = index.right) != null) {
+        var node = right.node;
+        if (node.value == null)
+          RIGHT.compareAndSet(index, right, right.right);
+        else if (key > node.key)
+          index = right;
+        else
+          break;
+      }
+      if (index.down == null)
+        return index.node;
+      index = index.down;
+    }
+  }
+
+  private Node<V> findNode(long key) {
+    search:
+    while (true) {
+      var before = findPredecessor(key);
+      while (true) {
+        var node = before.next;
+        if (node == null)
+          return null;
+        if (node.marker)
+          continue search;
+
+        if (node.value == null)
+          unlink(before, node);
+        else if (key > node.key)
+          before = node;
+        else
+          return key == node.key ? node : null;
+      }
+    }
+  }
+
+  // The first live node with a key >= key, or null.
+  private Node<V> findCeiling(long key) {
+    search:
+    while (true) {
+      var before = findPredecessor(key);
+      while (true) {
+        var node = before.next;
+        if (node == null)
+          return null;
+        if (node.marker)
+          continue search;
+
+        if (node.value == null)
+          unlink(before, node);
+        else if (key > node.key)
+          before = node;
+        else
+          return node;
+      }
+    }
+  }
+
+  private V put(long key, V value, boolean onlyIfAbsent) {
+    if (value == null)
+      throw new IllegalArgumentException("Values can't be null.");
+
+    while (true) {
+      // Find the predecessor on the base level, counting the levels we
+      // go down so we know how tall the head is.
+      var top = head;
+      var index = top;
+      var levels = 0;
+      while (true) {
+        Index<V> right;
+        while ((right = index.right) != null) {
+          var node = right.node;
+          if (node.value == null)
+            RIGHT.compareAndSet(index, right, right.right);
+          else if (key > node.key)
+            index = right;
+          else
+            break;
+        }
+        if (index.down == null)
+          break;
+        index = index.down;
+        levels++;
+      }
+
+      var before = index.node;
+      while (true) {
+        var next = before.next;
+        if (next != null) {
+          if (next.marker)
+            break; // `before` is being deleted; search again.
+
+          var current = next.value;
+          if (current == null) {
+            unlink(before, next);
+            continue;
+          }
+          if (key > next.key) {
+            before = next;
+            continue;
+          }
+          if (key == next.key) {
+            if (onlyIfAbsent || VALUE.compareAndSet(next, current, value))
+              return current;
+            continue; // Someone changed the value first; try again.
+          }
+        }
+
+        var node = new Node<>(key, value, next);
+        if (NEXT.compareAndSet(before, next, node)) {
+          count.increment();
+          addTower(top, levels, node);
+          return null;
+        }
+      }
+    }
+  }
+
+  // Gives the new node a random tower: none with probability 3/4, and
+  // every level above the first with probability 1/2. A tower taller
+  // than the head adds one level to the head.
+  private void addTower(Index<V> top, int levels, Node<V> node) {
+    var random = ThreadLocalRandom.current().nextLong();
+    if ((random & 3) != 0)
+      return;
+
+    // We build the tower top-down and count how many levels below the
+    // head it starts (skips). The sign bit of random is our coin.
+    var skips = levels;
+    Index<V> tower = null;
+    while (true) {
+      tower = new Index<>(node, tower, null);
+      if (random >= 0 || --skips < 0)
+        break;
+      random <<= 1;
+    }
+
+    if (addIndices(top, skips, tower) && skips < 0 && head == top) {
+      var above = new Index<>(node, tower, null);
+      var newHead = new Index<>(top.node, top, above);
+      HEAD.compareAndSet(this, top, newHead);
+    }
+
+    if (node.value == null)
+      findPredecessor(node.key); // Deleted meanwhile; unlink the tower.
+  }
+
+  // Links the tower into the index levels, bottom level first, starting
+  // `skips` levels below `index`. Returns false if the node has been
+  // deleted or replaced meanwhile.
+  private static <V> boolean addIndices(Index<V> index, int skips, Index<V> tower) {
+    if (tower == null)
+      return false;
+
+    var key = tower.node.key;
+    var retrying = false;
+    while (true) {
+      var right = index.right;
+      if (right != null) {
+        var node = right.node;
+        if (node.value == null) {
+          RIGHT.compareAndSet(index, right, right.right);
+          continue;
+        }
+        if (key > node.key) {
+          index = right;
+          continue;
+        }
+        if (key == node.key)
+          return false;
+      }
+
+      var down = index.down;
+      if (down != null && skips > 0) {
+        skips--;
+        index = down;
+      }
+      else if (down != null && !retrying && !addIndices(down, 0, tower.down))
+        return false;
+      else {
+        tower.right = right;
+        if (RIGHT.compareAndSet(index, right, tower))
+          return true;
+        retrying = true; // The levels below are done; just retry this one.
+      }
+    }
+  }
+
+  // Removes the top level if it and the two below it are empty. We
+  // look at three levels so that a tower being added right now doesn't
+  // keep losing its top level. If a tower shows up after all, we put the
+  // level back.
+  private void tryReduceLevel() {
+    var top = head;
+    Index<V> down;
+    Index<V> bottom;
+    if (top.right == null &&
+            (down = top.down) != null && down.right == null &&
+            (bottom = down.down) != null && bottom.right == null &&
+            HEAD.compareAndSet(this, top, down) &&
+            top.right != null)
+      HEAD.compareAndSet(this, down, top);
+  }
+
+  // Step 2 and 3 of deleting `node`, whose value is already null.
+  private static <V> void unlink(Node<V> before, Node<V> node) {
+    Node<V> after;
+    while (true) {
+      var next = node.next;
+      if (next != null && next.marker) {
+        after = next.next;
+        break;
+      }
+      if (NEXT.compareAndSet(node, next, new Node<>(next))) {
+        after = next;
+        break;
+      }
+    }
+    NEXT.compareAndSet(before, node, after);
+  }
+
+  // Walks the base level from `node`. Following next pointers always
+  // leads to bigger keys, even from a node that has been deleted since.
+  private class EntryIterator implements Iterator<Entry<V>> {
+    private final long last;
+    private Node<V> next;
+    private V nextValue;
+    private Node<V> returned;
+
+    private EntryIterator(Node<V> node, long last) {
+      this.last = last;
+      advance(node);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry<V> next() {
+      if (next == null)
+        throw new NoSuchElementException();
+
+      var entry = new Entry<>(next.key, nextValue);
+      returned = next;
+      advance(next.next);
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      if (returned == null)
+        throw new IllegalStateException();
+
+      ConcurrentLongSkipListMap.this.remove(returned.key);
+      returned = null;
+    }
+
+    private void advance(Node<V> node) {
+      for (; node != null; node = node.next) {
+        if (node.marker)
+          continue;
+        if (node.key > last)
+          break;
+        var value = node.value;
+        if (value != null) {
+          next = node;
+          nextValue = value;
+          return;
+        }
+      }
+      next = null;
+      nextValue = null;
+    }
+  }
+}
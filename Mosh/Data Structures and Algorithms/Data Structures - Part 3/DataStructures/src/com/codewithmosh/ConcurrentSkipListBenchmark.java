@@ -0,0 +1,156 @@
+package com.codewithmosh;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Every thread runs a mix of operations on random keys out of KEYS
+// against one shared map, which starts half full:
+//
+// - 80% get, 10% put, 10% remove
+// - then a round of short range scans (RANGE_KEYS keys from a random start)
+//
+// We compare ConcurrentLongSkipListMap with ConcurrentSkipListMap<Integer,
+// Integer>. Both store the same boxed values, so the difference comes
+// from the keys: ours are compared in place, the JDK's are Integer
+// objects we have to box for every call and follow a pointer to for
+// every comparison.
+//
+// This is a plain main() benchmark; take the numbers as a rough
+// comparison and ignore the first (warm-up) round.
+public class ConcurrentSkipListBenchmark {
+  private static final int KEYS = 1_000_000;
+  private static final int OPERATIONS_PER_THREAD = 1_000_000;
+  private static final int SCANS_PER_THREAD = 100_000;
+  private static final int RANGE_KEYS = 100;
+
+  private interface Operations {
+    void get(int key);
+    void put(int key, Integer value);
+    void remove(int key);
+    long scan(int from, int to);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    var maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      for (var threads = 1; threads <= maxThreads; threads *= 2) {
+        System.out.println("  " + threads + " thread(s)");
+
+        var ours = new ConcurrentLongSkipListMap<Integer>();
+        var oursMap = new Operations() {
+          public void get(int key) {
+            ours.get(key);
+          }
+
+          public void put(int key, Integer value) {
+            ours.put(key, value);
+          }
+
+          public void remove(int key) {
+            ours.remove(key);
+          }
+
+          public long scan(int from, int to) {
+            var sum = new long[1];
+            ours.forEach(from, to, (key, value) -> sum[0] += value);
+            return sum[0];
+          }
+        };
+
+        var jdk = new ConcurrentSkipListMap<Integer, Integer>();
+        var jdkMap = new Operations() {
+          public void get(int key) {
+            jdk.get(key);
+          }
+
+          public void put(int key, Integer value) {
+            jdk.put(key, value);
+          }
+
+          public void remove(int key) {
+            jdk.remove(key);
+          }
+
+          public long scan(int from, int to) {
+            var sum = new long[1];
+            jdk.subMap(from, to).forEach((key, value) -> sum[0] += value);
+            return sum[0];
+          }
+        };
+
+        fill(oursMap);
+        fill(jdkMap);
+
+        report("ConcurrentLongSkipListMap", "ops/s  ",
+                threads * (long) OPERATIONS_PER_THREAD, run(threads, oursMap, false));
+        report("ConcurrentSkipListMap    ", "ops/s  ",
+                threads * (long) OPERATIONS_PER_THREAD, run(threads, jdkMap, false));
+        report("ConcurrentLongSkipListMap", "scans/s",
+                threads * (long) SCANS_PER_THREAD, run(threads, oursMap, true));
+        report("ConcurrentSkipListMap    ", "scans/s",
+                threads * (long) SCANS_PER_THREAD, run(threads, jdkMap, true));
+      }
+    }
+  }
+
+  private static void fill(Operations map) {
+    for (var key = 0; key < KEYS; key += 2)
+      map.put(key, key);
+  }
+
+  private static void report(String name, String unit, long operations, long nanos) {
+    System.out.printf("    %s %s: %8.2f M%n",
+            name, unit, operations / (nanos / 1_000.0));
+  }
+
+  private static long run(int threads, Operations map, boolean scans)
+          throws InterruptedException {
+    var start = new CountDownLatch(1);
+    var workers = new Thread[threads];
+
+    for (var t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+
+        var random = ThreadLocalRandom.current();
+        if (scans) {
+          long total = 0;
+          for (var i = 0; i < SCANS_PER_THREAD; i++) {
+            var from = random.nextInt(KEYS);
+            total += map.scan(from, from + RANGE_KEYS);
+          }
+          if (total == 42)
+            System.out.println(); // Keeps the JIT from dropping the scans.
+          return;
+        }
+
+        for (var i = 0; i < OPERATIONS_PER_THREAD; i++) {
+          var key = random.nextInt(KEYS);
+          var operation = random.nextInt(10);
+          if (operation == 0)
+            map.put(key, key);
+          else if (operation == 1)
+            map.remove(key);
+          else
+            map.get(key);
+        }
+      });
+      workers[t].start();
+    }
+
+    var begin = System.nanoTime();
+    start.countDown();
+    for (var worker : workers)
+      worker.join();
+
+    return System.nanoTime() - begin;
+  }
+}
@@ -0,0 +1,127 @@
+package com.codewithmosh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A thread-safe stack of ints (Treiber stack with elimination backoff).
+//
+// The stack is a linked list and top is swung with a CAS. When many
+// threads push and pop at the same time, most of those CASes fail and
+// every thread keeps retrying on the same memory location.
+//
+// Elimination: a push followed by a pop leaves the stack unchanged, so
+// a push and a pop that happen at the same time don't need to touch the
+// stack at all. When a CAS on top fails, a pusher parks its node in a
+// random slot of a small "elimination" array and waits briefly. A
+// popper whose CAS failed looks at a random slot; if it finds a node
+// there, it takes it and both operations are done. If nobody shows up,
+// the pusher takes its node back and retries on the stack.
+//
+// Pass 0 elimination slots to get a plain Treiber stack.
+public class ConcurrentStack {
+  private static class Node {
+    private final int value;
+    private Node next;
+
+    public Node(int value) {
+      this.value = value;
+    }
+  }
+
+  private static final int SPINS = 128;
+
+  private final AtomicReference<Node> top = new AtomicReference<>();
+  private final AtomicReferenceArray<Node> slots;
+
+  public ConcurrentStack() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  }
+
+  public ConcurrentStack(int eliminationSlots) {
+    if (eliminationSlots < 0)
+      throw new IllegalArgumentException("eliminationSlots must be 0 or greater.");
+
+    slots = new AtomicReferenceArray<>(eliminationSlots);
+  }
+
+  // O(1) when uncontended
+  public void push(int item) {
+    var node = new Node(item);
+
+    while (true) {
+      var current = top.get();
+      node.next = current;
+      if (top.compareAndSet(current, node))
+        return;
+
+      if (tryHandOff(node))
+        return;
+    }
+  }
+
+  // O(1) when uncontended
+  public int pop() {
+    while (true) {
+      var current = top.get();
+      if (current == null)
+        throw new IllegalStateException();
+
+      if (top.compareAndSet(current, current.next))
+        return current.value;
+
+      var node = tryTakeHandOff();
+      if (node != null)
+        return node.value;
+    }
+  }
+
+  public int peek() {
+    var current = top.get();
+    if (current == null)
+      throw new IllegalStateException();
+
+    return current.value;
+  }
+
+  // May be out of date as soon as it returns.
+  public boolean isEmpty() {
+    return top.get() == null;
+  }
+
+  // Offers the node to a concurrent pop. Returns true if a pop took it.
+  private boolean tryHandOff(Node node) {
+    if (slots.length() == 0)
+      return false;
+
+    var index = randomSlot();
+    if (!slots.compareAndSet(index, null, node))
+      return false;
+
+    for (var i = 0; i < SPINS; i++) {
+      if (slots.get(index) != node)
+        return true;
+      Thread.onSpinWait();
+    }
+
+    // Nobody came. If we can't take the node back, a pop got it
+    // at the last moment.
+    return !slots.compareAndSet(index, node, null);
+  }
+
+  private Node tryTakeHandOff() {
+    if (slots.length() == 0)
+      return null;
+
+    var index = randomSlot();
+    var node = slots.get(index);
+    if (node != null && slots.compareAndSet(index, node, null))
+      return node;
+
+    return null;
+  }
+
+  private int randomSlot() {
+    return ThreadLocalRandom.current().nextInt(slots.length());
+  }
+}
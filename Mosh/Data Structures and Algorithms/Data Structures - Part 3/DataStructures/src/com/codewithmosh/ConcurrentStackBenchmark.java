@@ -0,0 +1,84 @@
+package com.codewithmosh;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+// Every thread runs push/pop pairs against one shared stack, so all of
+// them fight over the top. We compare:
+//
+// - ConcurrentStack with elimination
+// - ConcurrentStack without elimination (plain Treiber stack)
+// - java.util.Stack (synchronized)
+// - ConcurrentLinkedDeque used as a stack
+//
+// This is a plain main() benchmark; take the numbers as a rough
+// comparison and ignore the first (warm-up) round.
+public class ConcurrentStackBenchmark {
+  private static final int PAIRS_PER_THREAD = 2_000_000;
+
+  public static void main(String[] args) throws InterruptedException {
+    var maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      for (var threads = 1; threads <= maxThreads; threads *= 2) {
+        System.out.println("  " + threads + " thread(s)");
+
+        var eliminating = new ConcurrentStack();
+        report("treiber + elimination", threads,
+                run(threads, eliminating::push, eliminating::pop));
+
+        var treiber = new ConcurrentStack(0);
+        report("treiber              ", threads,
+                run(threads, treiber::push, treiber::pop));
+
+        var synchronizedStack = new java.util.Stack<Integer>();
+        report("java.util.Stack      ", threads,
+                run(threads, synchronizedStack::push, synchronizedStack::pop));
+
+        var deque = new ConcurrentLinkedDeque<Integer>();
+        report("ConcurrentLinkedDeque", threads,
+                run(threads, deque::push, deque::pop));
+      }
+    }
+  }
+
+  private static void report(String name, int threads, long nanos) {
+    var operations = 2L * PAIRS_PER_THREAD * threads;
+    System.out.printf("    %s: %8.1f Mops/s%n",
+            name, operations / (nanos / 1_000.0));
+  }
+
+  // Each pair pushes first, so a pop never finds the stack empty.
+  private static long run(int threads, IntConsumer push, IntSupplier pop)
+          throws InterruptedException {
+    var start = new CountDownLatch(1);
+    var workers = new Thread[threads];
+
+    for (var t = 0; t < threads; t++) {
+      workers[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+
+        for (var i = 0; i < PAIRS_PER_THREAD; i++) {
+          push.accept(i);
+          pop.getAsInt();
+        }
+      });
+      workers[t].start();
+    }
+
+    var begin = System.nanoTime();
+    start.countDown();
+    for (var worker : workers)
+      worker.join();
+
+    return System.nanoTime() - begin;
+  }
+}
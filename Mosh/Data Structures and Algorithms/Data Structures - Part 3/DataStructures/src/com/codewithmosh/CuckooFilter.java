@@ -0,0 +1,265 @@
+package com.codewithmosh;
+
+// A filter that stores a short fingerprint of every key in a cuckoo
+// hash table (Fan et al., "Cuckoo Filter: Practically Better Than
+// Bloom"). Unlike a Bloom filter, it can forget keys.
+//
+// The table has buckets of 4 slots, and every key may live in one of
+// two buckets. The first bucket comes from the hash; the second is the
+// first XOR a hash of the fingerprint:
+//
+//   bucket2 = bucket1 ^ hash(fingerprint)
+//
+// Since XOR undoes itself, the same formula takes us from either bucket
+// to the other using only the fingerprint, which is all we have left
+// when we need to move a key.
+//
+// To add a key, we put its fingerprint in a free slot of either bucket.
+// If both are full, we kick a random fingerprint out of one of them,
+// move it to its other bucket, and repeat (up to MAX_KICKS times). If
+// we still haven't found a free slot, the table is full: we keep the
+// homeless fingerprint aside, so no key gets lost, and refuse any more
+// keys.
+//
+// A lookup compares the key's fingerprint with the 8 slots of its two
+// buckets. With f-bit fingerprints, each slot matches by accident with
+// probability 1 / 2^f, so the false positive rate is about 8 / 2^f at
+// full load.
+//
+// The fingerprints are packed into an array of longs, fingerprintBits
+// bits each, so a looser false positive rate gives a smaller table: 10-bit
+// fingerprints (1%) take 10 bits per slot, not the 16 of a char. A
+// fingerprint may straddle two longs; get() and set() stitch it together.
+public class CuckooFilter implements DeletableMembershipFilter {
+  private static final int SLOTS_PER_BUCKET = 4;
+  private static final int MAX_KICKS = 500;
+  private static final double MAX_LOAD = 0.95;
+  private static final int MAX_BUCKETS = 1 << 28;
+  private static final int MAX_FINGERPRINT_BITS = 16;
+
+  // Fingerprints, SLOTS_PER_BUCKET per bucket, packed fingerprintBits
+  // bits each; 0 marks a free slot.
+  private final long[] words;
+  private final int slots;
+  private final int bucketMask;
+  private final int fingerprintBits;
+  private final long fingerprintMask;
+  private int count;
+
+  private boolean hasVictim;
+  private int victimBucket;
+  private int victimFingerprint;
+
+  private long random = 0x9E3779B97F4A7C15L;
+
+  public CuckooFilter(int expectedItems, double falsePositiveRate) {
+    if (expectedItems < 1)
+      throw new IllegalArgumentException("Expected items must be 1 or greater.");
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+
+    var bits = (int) Math.ceil(log2(2.0 * SLOTS_PER_BUCKET / falsePositiveRate));
+    if (bits > MAX_FINGERPRINT_BITS)
+      throw new IllegalArgumentException(String.format(
+              "Fingerprints are at most %d bits; use a false positive rate of %.6f or more.",
+              MAX_FINGERPRINT_BITS, 2.0 * SLOTS_PER_BUCKET / (1 << MAX_FINGERPRINT_BITS)));
+
+    var buckets = (long) Math.ceil(expectedItems / (SLOTS_PER_BUCKET * MAX_LOAD));
+    if (buckets > MAX_BUCKETS)
+      throw new IllegalArgumentException("Too many expected items.");
+
+    // A power of two, so that the XOR above stays within the table.
+    var capacity = Integer.highestOneBit((int) Math.max(1, buckets));
+    if (capacity < buckets)
+      capacity <<= 1;
+
+    fingerprintBits = bits;
+    fingerprintMask = (1L << bits) - 1;
+    bucketMask = capacity - 1;
+    slots = capacity * SLOTS_PER_BUCKET;
+    // One more long, so that get() and set() can always read the next one.
+    words = new long[(int) (((long) slots * bits + Long.SIZE - 1) / Long.SIZE) + 1];
+  }
+
+  // O(1) amortized, while the table isn't close to full.
+  @Override
+  public boolean add(long hash) {
+    if (hasVictim)
+      return false;
+
+    place(bucketOf(hash), fingerprintOf(hash));
+    count++;
+    return true;
+  }
+
+  // O(1): at most 8 slots.
+  @Override
+  public boolean mightContain(long hash) {
+    var fingerprint = fingerprintOf(hash);
+    var bucket = bucketOf(hash);
+    var other = otherBucket(bucket, fingerprint);
+
+    if (hasVictim && victimFingerprint == fingerprint &&
+            (victimBucket == bucket || victimBucket == other))
+      return true;
+
+    return indexOf(bucket, fingerprint) >= 0 || indexOf(other, fingerprint) >= 0;
+  }
+
+  // O(1) amortized. Removes one copy of the key's fingerprint.
+  @Override
+  public boolean remove(long hash) {
+    var fingerprint = fingerprintOf(hash);
+    var bucket = bucketOf(hash);
+    var other = otherBucket(bucket, fingerprint);
+
+    var index = indexOf(bucket, fingerprint);
+    if (index < 0)
+      index = indexOf(other, fingerprint);
+
+    if (index >= 0)
+      set(index, 0);
+    else if (hasVictim && victimFingerprint == fingerprint &&
+            (victimBucket == bucket || victimBucket == other)) {
+      hasVictim = false;
+      count--;
+      return true;
+    }
+    else
+      return false;
+
+    count--;
+
+    // We made room, so the fingerprint we kept aside may fit now.
+    if (hasVictim) {
+      hasVictim = false;
+      place(victimBucket, victimFingerprint);
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public long sizeInBytes() {
+    return (long) words.length * Long.BYTES;
+  }
+
+  // Every one of the 8 slots we compare with holds a fingerprint with
+  // probability load, and matches by accident with probability 1 / 2^f.
+  @Override
+  public double falsePositiveRate() {
+    var load = load();
+    var matches = 2 * SLOTS_PER_BUCKET * Math.min(1, load);
+    return -Math.expm1(matches * Math.log1p(-1.0 / (1 << fingerprintBits)));
+  }
+
+  public int fingerprintBits() {
+    return fingerprintBits;
+  }
+
+  public double load() {
+    return (double) count / slots;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CuckooFilter[%d items, %d bytes, %d-bit fingerprints, load %.2f, fpr %.4f%%]",
+            count, sizeInBytes(), fingerprintBits, load(), falsePositiveRate() * 100);
+  }
+
+  private void place(int bucket, int fingerprint) {
+    if (tryPut(bucket, fingerprint))
+      return;
+    bucket = otherBucket(bucket, fingerprint);
+    if (tryPut(bucket, fingerprint))
+      return;
+
+    for (var kick = 0; kick < MAX_KICKS; kick++) {
+      var index = bucket * SLOTS_PER_BUCKET + (int) (nextRandom() & (SLOTS_PER_BUCKET - 1));
+      var evicted = get(index);
+      set(index, fingerprint);
+      fingerprint = evicted;
+
+      bucket = otherBucket(bucket, fingerprint);
+      if (tryPut(bucket, fingerprint))
+        return;
+    }
+
+    hasVictim = true;
+    victimBucket = bucket;
+    victimFingerprint = fingerprint;
+  }
+
+  private boolean tryPut(int bucket, int fingerprint) {
+    var first = bucket * SLOTS_PER_BUCKET;
+    for (var i = first; i < first + SLOTS_PER_BUCKET; i++) {
+      if (get(i) == 0) {
+        set(i, fingerprint);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int indexOf(int bucket, int fingerprint) {
+    var first = bucket * SLOTS_PER_BUCKET;
+    for (var i = first; i < first + SLOTS_PER_BUCKET; i++) {
+      if (get(i) == fingerprint)
+        return i;
+    }
+    return -1;
+  }
+
+  private int get(int slot) {
+    var bit = (long) slot * fingerprintBits;
+    var word = (int) (bit >>> 6);
+    var shift = (int) bit & 63;
+    var value = words[word] >>> shift;
+    if (shift + fingerprintBits > Long.SIZE)
+      value |= words[word + 1] << (Long.SIZE - shift);
+    return (int) (value & fingerprintMask);
+  }
+
+  private void set(int slot, int fingerprint) {
+    var bit = (long) slot * fingerprintBits;
+    var word = (int) (bit >>> 6);
+    var shift = (int) bit & 63;
+    words[word] = (words[word] & ~(fingerprintMask << shift)) | ((long) fingerprint << shift);
+    if (shift + fingerprintBits > Long.SIZE) {
+      var high = Long.SIZE - shift;
+      words[word + 1] = (words[word + 1] & ~(fingerprintMask >>> high)) | ((long) fingerprint >>> high);
+    }
+  }
+
+  // The bucket comes from the low bits of the hash and the fingerprint
+  // from the high bits, so the two don't depend on each other.
+  private int bucketOf(long hash) {
+    return (int) hash & bucketMask;
+  }
+
+  // 0 marks a free slot, so a fingerprint of 0 becomes 1.
+  private int fingerprintOf(long hash) {
+    var fingerprint = (int) (hash >>> (Long.SIZE - fingerprintBits));
+    return fingerprint == 0 ? 1 : fingerprint;
+  }
+
+  private int otherBucket(int bucket, int fingerprint) {
+    return (bucket ^ (fingerprint * 0x5bd1e995)) & bucketMask;
+  }
+
+  // xorshift64: we only need a cheap coin to pick the slot to kick out.
+  private long nextRandom() {
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    return random;
+  }
+
+  private static double log2(double value) {
+    return Math.log(value) / Math.log(2);
+  }
+}
@@ -0,0 +1,10 @@
+package com.codewithmosh;
+
+// A MembershipFilter that can also forget keys (see CuckooFilter). A
+// Bloom filter can't: its bits are shared by several keys.
+public interface DeletableMembershipFilter extends MembershipFilter {
+  // Forgets a key that was added before. Only call it for keys that
+  // were added; otherwise another key may be forgotten in its place.
+  // Returns false if the filter had no trace of the key.
+  boolean remove(long hash);
+}
@@ -0,0 +1,804 @@
+package com.codewithmosh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+// An ordered map from long to long, kept in a B+ tree in a file, so it
+// can be much bigger than the heap and survives a restart.
+//
+// The file is a sequence of 4 KB pages, and every page is one node of
+// the tree. We memory-map the file (64 MB at a time), so reading a page
+// is just reading memory; the operating system decides which parts of
+// the file stay in RAM.
+//
+// - Lookups decode the inner nodes they pass through and keep them in a
+//   small cache (see PageCache) with clock eviction. There are few inner
+//   nodes (a leaf holds 255 entries, an inner node 341 children), so the
+//   top of the tree stays cached. Leaves are searched right where they
+//   are in the mapped file.
+//
+// - Pages that are part of the last committed tree are never written.
+//   To change a node, we write a copy of it to a free page, which means
+//   we also have to copy its parent (to point to the copy), and so on
+//   up to the root ("copy-on-write"). Within a transaction, a page we've
+//   already copied is ours, so we change it in place.
+//
+// - commit() writes the new pages, forces them to disk, and only then
+//   writes the new root to one of two header pages (the older one), and
+//   forces that. If we crash before the header is on disk, opening the
+//   file finds the previous header, whose tree is still intact. Each
+//   header has a checksum, so a half-written header is simply ignored.
+//
+// - The pages the old tree used become free after the commit. We don't
+//   store the free list: when we open a file, we find the pages that the
+//   tree doesn't use by walking its inner nodes.
+//
+// Unlike BPlusTree, leaves don't point to the next leaf: with
+// copy-on-write, changing a leaf would mean copying the leaf before it,
+// and the one before that, and so on. Range scans walk down the tree
+// instead. Deletes don't merge half-empty pages either; a page is only
+// removed when it becomes empty. Not thread-safe.
+public class DiskBPlusTree implements Closeable {
+  public static final int PAGE_SIZE = 4096;
+  public static final int DEFAULT_CACHE_PAGES = 1024;
+
+  private static final int SEGMENT_PAGES = 16 * 1024;  // 64 MB
+  private static final long SEGMENT_SIZE = (long) SEGMENT_PAGES * PAGE_SIZE;
+
+  // Header pages (0 and 1): magic, version, root, height, size, page
+  // count, then a CRC32 of all that.
+  private static final long MAGIC = 0x4250545245453031L;  // "BPTREE01"
+  private static final int HEADER_PAGES = 2;
+  private static final int HEADER_CHECKED_BYTES = 40;
+
+  // Node pages: type, count, then the keys, then the values (leaves) or
+  // the child page numbers (inner nodes).
+  private static final int LEAF = 0;
+  private static final int INNER = 1;
+  private static final int NODE_HEADER = 8;
+  private static final int LEAF_CAPACITY = (PAGE_SIZE - NODE_HEADER) / 16;         // 255
+  private static final int INNER_CAPACITY = (PAGE_SIZE - NODE_HEADER - 4) / 12;    // 340 keys
+  private static final int LEAF_VALUES = NODE_HEADER + 8 * LEAF_CAPACITY;
+  private static final int INNER_CHILDREN = NODE_HEADER + 8 * INNER_CAPACITY;
+
+  public interface EntryVisitor {
+    void visit(long key, long value);
+  }
+
+  // A decoded page. The arrays have room for one more entry than fits
+  // in a page, so we can insert first and split afterwards.
+  private static class Node {
+    final boolean leaf;
+    final long[] keys;
+    final long[] values;   // leaves only
+    final int[] children;  // inner nodes only
+    int count;
+    int page;
+
+    Node(boolean leaf) {
+      this.leaf = leaf;
+      if (leaf) {
+        keys = new long[LEAF_CAPACITY + 1];
+        values = new long[LEAF_CAPACITY + 1];
+        children = null;
+      } else {
+        keys = new long[INNER_CAPACITY + 1];
+        values = null;
+        children = new int[INNER_CAPACITY + 2];
+      }
+    }
+
+    Node copy() {
+      var copy = new Node(leaf);
+      copy.count = count;
+      System.arraycopy(keys, 0, copy.keys, 0, count);
+      if (leaf)
+        System.arraycopy(values, 0, copy.values, 0, count);
+      else
+        System.arraycopy(children, 0, copy.children, 0, count + 1);
+      return copy;
+    }
+  }
+
+  private final FileChannel channel;
+  private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+  private final PageCache cache;
+
+  // The last committed tree.
+  private long version;
+  private int committedRoot;
+  private int committedHeight;
+  private long committedSize;
+
+  // The tree we're working on. Its new pages are in `dirty` until the
+  // next commit.
+  private int root;
+  private int height;  // levels, counting the leaves
+  private long size;
+  private int pageCount;
+  private final HashMap<Integer, Node> dirty = new HashMap<>();
+  private final Stack free = new Stack();                // can be reused now
+  private final Stack freedInTransaction = new Stack();  // after the commit
+
+  // Set by insert() when the node it was called on splits.
+  private int splitPage = -1;
+  private long splitKey;
+
+  private DiskBPlusTree(FileChannel channel, int cachePages) {
+    this.channel = channel;
+    this.cache = new PageCache(cachePages);
+  }
+
+  public static DiskBPlusTree open(Path file) throws IOException {
+    return open(file, DEFAULT_CACHE_PAGES);
+  }
+
+  // Opens the file, or creates it if it doesn't exist.
+  public static DiskBPlusTree open(Path file, int cachePages) throws IOException {
+    if (cachePages <= 0)
+      throw new IllegalArgumentException("cachePages must be 1 or greater.");
+
+    var channel = FileChannel.open(file,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    var tree = new DiskBPlusTree(channel, cachePages);
+    try {
+      if (channel.size() == 0)
+        tree.create();
+      else
+        tree.load(file);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    return tree;
+  }
+
+  // O(log n)
+  public long get(long key) {
+    return getOrDefault(key, 0);
+  }
+
+  // O(log n)
+  public long getOrDefault(long key, long defaultValue) {
+    var page = findLeaf(key);
+    var node = dirty.get(page);
+    if (node != null) {
+      var index = lowerBound(node.keys, node.count, key);
+      return index < node.count && node.keys[index] == key ? node.values[index] : defaultValue;
+    }
+
+    var buffer = segment(page);
+    var offset = offset(page);
+    var count = buffer.getInt(offset + 4);
+    var index = lowerBound(buffer, offset + NODE_HEADER, count, key);
+    return index < count && buffer.getLong(offset + NODE_HEADER + 8 * index) == key
+            ? buffer.getLong(offset + LEAF_VALUES + 8 * index)
+            : defaultValue;
+  }
+
+  // O(log n)
+  public boolean containsKey(long key) {
+    var page = findLeaf(key);
+    var node = dirty.get(page);
+    if (node != null) {
+      var index = lowerBound(node.keys, node.count, key);
+      return index < node.count && node.keys[index] == key;
+    }
+
+    var buffer = segment(page);
+    var offset = offset(page);
+    var count = buffer.getInt(offset + 4);
+    var index = lowerBound(buffer, offset + NODE_HEADER, count, key);
+    return index < count && buffer.getLong(offset + NODE_HEADER + 8 * index) == key;
+  }
+
+  // O(log n). Replaces the value if the key is already there. The change
+  // is only durable after commit().
+  public void put(long key, long value) {
+    root = insert(root, 1, key, value);
+    if (splitPage == -1)
+      return;
+
+    // The root split, so the tree grows one level taller.
+    var newRoot = newNode(false);
+    newRoot.keys[0] = splitKey;
+    newRoot.children[0] = root;
+    newRoot.children[1] = splitPage;
+    newRoot.count = 1;
+    root = newRoot.page;
+    height++;
+    splitPage = -1;
+  }
+
+  // O(log n). Returns false if the key wasn't there. The change is only
+  // durable after commit().
+  public boolean delete(long key) {
+    if (!containsKey(key))
+      return false;
+
+    root = remove(root, 1, key);
+    size--;
+
+    if (root == -1) {
+      root = newNode(true).page;
+      height = 1;
+    }
+
+    // A root with a single child isn't needed.
+    while (height > 1) {
+      var node = read(root);
+      if (node.count > 0)
+        break;
+      var child = node.children[0];
+      release(root);
+      root = child;
+      height--;
+    }
+    return true;
+  }
+
+  // O(log n + k), where k is the number of keys visited. Visits the keys
+  // from `from` (inclusive) to `to` (exclusive) in ascending order.
+  public void forEach(long from, long to, EntryVisitor visitor) {
+    if (from < to)
+      scan(root, 1, from, to, visitor);
+  }
+
+  // O(n), in ascending order of keys.
+  public void forEach(EntryVisitor visitor) {
+    forEachInLeaf(root, 1, visitor);
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  // The number of pages in the file, including free ones.
+  public int pageCount() {
+    return pageCount;
+  }
+
+  // Makes every change since the last commit durable, all at once.
+  public void commit() throws IOException {
+    if (dirty.isEmpty() && freedInTransaction.isEmpty())
+      return;
+
+    var touched = new BitSet();
+    for (var node : dirty.values()) {
+      encode(node);
+      touched.set(node.page / SEGMENT_PAGES);
+    }
+    for (var i = touched.nextSetBit(0); i >= 0; i = touched.nextSetBit(i + 1))
+      segments.get(i).force();
+
+    writeHeader(version + 1);
+
+    version++;
+    committedRoot = root;
+    committedHeight = height;
+    committedSize = size;
+
+    // The new inner nodes won't change anymore, so they can be cached.
+    for (var node : dirty.values())
+      if (!node.leaf)
+        cache.put(node.page, node);
+    dirty.clear();
+
+    while (!freedInTransaction.isEmpty())
+      free.push(freedInTransaction.pop());
+  }
+
+  // Throws away every change since the last commit.
+  public void rollback() {
+    for (var page : dirty.keySet())
+      free.push(page);
+    dirty.clear();
+
+    while (!freedInTransaction.isEmpty())
+      freedInTransaction.pop();
+
+    root = committedRoot;
+    height = committedHeight;
+    size = committedSize;
+  }
+
+  // Commits and closes the file.
+  @Override
+  public void close() throws IOException {
+    try {
+      commit();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void create() throws IOException {
+    pageCount = HEADER_PAGES;
+    root = newNode(true).page;
+    height = 1;
+    commit();
+  }
+
+  // Reads both headers and uses the newest valid one.
+  private void load(Path file) throws IOException {
+    var segmentCount = (int) ((channel.size() + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+    for (var i = 0; i < segmentCount; i++)
+      map(i);
+
+    var first = readHeaderVersion(0);
+    var second = readHeaderVersion(1);
+    if (first < 0 && second < 0)
+      throw new IOException("Not a B+ tree file, or both its headers are damaged: " + file);
+
+    var header = first > second ? 0 : 1;
+    var offset = offset(header);
+    var buffer = segments.get(0);
+    version = buffer.getLong(offset + 8);
+    root = committedRoot = buffer.getInt(offset + 16);
+    height = committedHeight = buffer.getInt(offset + 20);
+    size = committedSize = buffer.getLong(offset + 24);
+    pageCount = (int) buffer.getLong(offset + 32);
+
+    findFreePages();
+  }
+
+  // Every page the tree doesn't use is free. We only have to read the
+  // inner nodes: the children of the lowest ones are leaves.
+  private void findFreePages() {
+    var used = new BitSet(pageCount);
+    used.set(0, HEADER_PAGES);
+    used.set(root);
+
+    var pages = new Stack();
+    var levels = new Stack();
+    if (height > 1) {
+      pages.push(root);
+      levels.push(1);
+    }
+    while (!pages.isEmpty()) {
+      var node = read(pages.pop());
+      var level = levels.pop();
+      for (var i = 0; i <= node.count; i++) {
+        used.set(node.children[i]);
+        if (level + 1 < height) {
+          pages.push(node.children[i]);
+          levels.push(level + 1);
+        }
+      }
+    }
+
+    for (var page = used.nextClearBit(0); page < pageCount; page = used.nextClearBit(page + 1))
+      free.push(page);
+  }
+
+  // Returns the version in the header, or -1 if it isn't valid.
+  private long readHeaderVersion(int page) {
+    var buffer = segments.get(0);
+    var offset = offset(page);
+    if (buffer.getLong(offset) != MAGIC)
+      return -1;
+
+    var crc = new CRC32();
+    crc.update(buffer.duplicate().position(offset).limit(offset + HEADER_CHECKED_BYTES));
+    if (buffer.getLong(offset + HEADER_CHECKED_BYTES) != crc.getValue())
+      return -1;
+
+    return buffer.getLong(offset + 8);
+  }
+
+  // Versions alternate between the two header pages, so we always
+  // overwrite the older one.
+  private void writeHeader(long newVersion) {
+    var buffer = segments.get(0);
+    var offset = offset((int) (newVersion % HEADER_PAGES));
+    buffer.putLong(offset, MAGIC);
+    buffer.putLong(offset + 8, newVersion);
+    buffer.putInt(offset + 16, root);
+    buffer.putInt(offset + 20, height);
+    buffer.putLong(offset + 24, size);
+    buffer.putLong(offset + 32, pageCount);
+
+    var crc = new CRC32();
+    crc.update(buffer.duplicate().position(offset).limit(offset + HEADER_CHECKED_BYTES));
+    buffer.putLong(offset + HEADER_CHECKED_BYTES, crc.getValue());
+    buffer.force();
+  }
+
+  private int findLeaf(long key) {
+    var page = root;
+    for (var level = 1; level < height; level++) {
+      var node = read(page);
+      page = node.children[childIndex(node, key)];
+    }
+    return page;
+  }
+
+  // Returns the page of the node (a copy, if we had to make one). If the
+  // node split, splitPage and splitKey describe its new right sibling.
+  private int insert(int page, int level, long key, long value) {
+    var node = writable(page);
+
+    if (level == height) {
+      var index = lowerBound(node.keys, node.count, key);
+      if (index < node.count && node.keys[index] == key) {
+        node.values[index] = value;
+        return node.page;
+      }
+
+      System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+      System.arraycopy(node.values, index, node.values, index + 1, node.count - index);
+      node.keys[index] = key;
+      node.values[index] = value;
+      node.count++;
+      size++;
+
+      if (node.count > LEAF_CAPACITY)
+        splitLeaf(node, index);
+      return node.page;
+    }
+
+    var index = childIndex(node, key);
+    node.children[index] = insert(node.children[index], level + 1, key, value);
+    if (splitPage == -1)
+      return node.page;
+
+    System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+    System.arraycopy(node.children, index + 1, node.children, index + 2, node.count - index);
+    node.keys[index] = splitKey;
+    node.children[index + 1] = splitPage;
+    node.count++;
+    splitPage = -1;
+
+    if (node.count > INNER_CAPACITY)
+      splitInner(node);
+    return node.page;
+  }
+
+  // Usually we move the upper half to a new leaf. But if the new key went
+  // at the very end (keys inserted in ascending order), we only move that
+  // key, so the leaves we leave behind are full instead of half empty.
+  private void splitLeaf(Node node, int insertedAt) {
+    var middle = insertedAt == node.count - 1 ? node.count - 1 : node.count / 2;
+    var right = newNode(true);
+    right.count = node.count - middle;
+    System.arraycopy(node.keys, middle, right.keys, 0, right.count);
+    System.arraycopy(node.values, middle, right.values, 0, right.count);
+    node.count = middle;
+
+    splitPage = right.page;
+    splitKey = right.keys[0];
+  }
+
+  private void splitInner(Node node) {
+    var middle = node.count / 2;
+    var right = newNode(false);
+    right.count = node.count - middle - 1;
+    System.arraycopy(node.keys, middle + 1, right.keys, 0, right.count);
+    System.arraycopy(node.children, middle + 1, right.children, 0, right.count + 1);
+    node.count = middle;
+
+    splitPage = right.page;
+    splitKey = node.keys[middle];
+  }
+
+  // Returns the page of the node (a copy, if we had to make one), or -1
+  // if it became empty and was released. The key must be in the tree.
+  private int remove(int page, int level, long key) {
+    var node = writable(page);
+
+    if (level == height) {
+      var index = lowerBound(node.keys, node.count, key);
+      System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index - 1);
+      System.arraycopy(node.values, index + 1, node.values, index, node.count - index - 1);
+      node.count--;
+    } else {
+      var index = childIndex(node, key);
+      var child = remove(node.children[index], level + 1, key);
+      if (child != -1) {
+        node.children[index] = child;
+        return node.page;
+      }
+
+      if (node.count == 0) {
+        release(node.page);
+        return -1;
+      }
+
+      // Drop the empty child, and a key next to it.
+      var keyIndex = index == 0 ? 0 : index - 1;
+      System.arraycopy(node.keys, keyIndex + 1, node.keys, keyIndex, node.count - keyIndex - 1);
+      System.arraycopy(node.children, index + 1, node.children, index, node.count - index);
+      node.count--;
+      return node.page;
+    }
+
+    if (node.count == 0) {
+      release(node.page);
+      return -1;
+    }
+    return node.page;
+  }
+
+  private void scan(int page, int level, long from, long to, EntryVisitor visitor) {
+    if (level < height) {
+      var node = read(page);
+      for (var i = childIndex(node, from); i <= node.count; i++) {
+        if (i > 0 && node.keys[i - 1] >= to)
+          return;
+        scan(node.children[i], level + 1, from, to, visitor);
+      }
+      return;
+    }
+
+    var node = dirty.get(page);
+    if (node != null) {
+      for (var i = lowerBound(node.keys, node.count, from); i < node.count && node.keys[i] < to; i++)
+        visitor.visit(node.keys[i], node.values[i]);
+      return;
+    }
+
+    var buffer = segment(page);
+    var offset = offset(page);
+    var count = buffer.getInt(offset + 4);
+    for (var i = lowerBound(buffer, offset + NODE_HEADER, count, from); i < count; i++) {
+      var key = buffer.getLong(offset + NODE_HEADER + 8 * i);
+      if (key >= to)
+        return;
+      visitor.visit(key, buffer.getLong(offset + LEAF_VALUES + 8 * i));
+    }
+  }
+
+  private void forEachInLeaf(int page, int level, EntryVisitor visitor) {
+    if (level < height) {
+      var node = read(page);
+      for (var i = 0; i <= node.count; i++)
+        forEachInLeaf(node.children[i], level + 1, visitor);
+      return;
+    }
+
+    var node = dirty.containsKey(page) ? dirty.get(page) : decode(page);
+    for (var i = 0; i < node.count; i++)
+      visitor.visit(node.keys[i], node.values[i]);
+  }
+
+  // A node we may only read: new in this transaction, cached, or
+  // decoded from the file (and then cached, if it's an inner node).
+  private Node read(int page) {
+    if (!dirty.isEmpty()) {
+      var node = dirty.get(page);
+      if (node != null)
+        return node;
+    }
+
+    var node = cache.get(page);
+    if (node == null) {
+      node = decode(page);
+      if (!node.leaf)
+        cache.put(page, node);
+    }
+    return node;
+  }
+
+  // A node we may change: if it's from the committed tree, we copy it to
+  // a new page and free the old one after the commit.
+  private Node writable(int page) {
+    var node = dirty.get(page);
+    if (node != null)
+      return node;
+
+    var cached = cache.get(page);
+    node = cached != null ? cached.copy() : decode(page);
+    node.page = allocate();
+    dirty.put(node.page, node);
+    freedInTransaction.push(page);
+    return node;
+  }
+
+  private Node newNode(boolean leaf) {
+    var node = new Node(leaf);
+    node.page = allocate();
+    dirty.put(node.page, node);
+    return node;
+  }
+
+  // A page that is no longer in the tree we're working on.
+  private void release(int page) {
+    if (dirty.remove(page) != null)
+      free.push(page);
+    else
+      freedInTransaction.push(page);
+  }
+
+  private int allocate() {
+    if (!free.isEmpty()) {
+      var page = free.pop();
+      cache.remove(page);
+      return page;
+    }
+
+    var page = pageCount++;
+    if (page / SEGMENT_PAGES >= segments.size()) {
+      try {
+        map(page / SEGMENT_PAGES);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return page;
+  }
+
+  // Mapping past the end of the file makes the file bigger.
+  private void map(int segment) throws IOException {
+    while (segments.size() <= segment)
+      segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+              segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+  }
+
+  private MappedByteBuffer segment(int page) {
+    return segments.get(page / SEGMENT_PAGES);
+  }
+
+  private static int offset(int page) {
+    return (page % SEGMENT_PAGES) * PAGE_SIZE;
+  }
+
+  private Node decode(int page) {
+    var buffer = segment(page);
+    var offset = offset(page);
+    var node = new Node(buffer.getInt(offset) == LEAF);
+    node.page = page;
+    node.count = buffer.getInt(offset + 4);
+
+    for (var i = 0; i < node.count; i++)
+      node.keys[i] = buffer.getLong(offset + NODE_HEADER + 8 * i);
+    if (node.leaf) {
+      for (var i = 0; i < node.count; i++)
+        node.values[i] = buffer.getLong(offset + LEAF_VALUES + 8 * i);
+    } else {
+      for (var i = 0; i <= node.count; i++)
+        node.children[i] = buffer.getInt(offset + INNER_CHILDREN + 4 * i);
+    }
+    return node;
+  }
+
+  private void encode(Node node) {
+    var buffer = segment(node.page);
+    var offset = offset(node.page);
+    buffer.putInt(offset, node.leaf ? LEAF : INNER);
+    buffer.putInt(offset + 4, node.count);
+
+    for (var i = 0; i < node.count; i++)
+      buffer.putLong(offset + NODE_HEADER + 8 * i, node.keys[i]);
+    if (node.leaf) {
+      for (var i = 0; i < node.count; i++)
+        buffer.putLong(offset + LEAF_VALUES + 8 * i, node.values[i]);
+    } else {
+      for (var i = 0; i <= node.count; i++)
+        buffer.putInt(offset + INNER_CHILDREN + 4 * i, node.children[i]);
+    }
+  }
+
+  // The child whose keys can include the given key: children[i] holds
+  // the keys < keys[i], and children[i + 1] the keys >= keys[i].
+  private static int childIndex(Node node, long key) {
+    var index = lowerBound(node.keys, node.count, key);
+    return index < node.count && node.keys[index] == key ? index + 1 : index;
+  }
+
+  // The number of keys smaller than the given one, as in BPlusTree.
+  private static int lowerBound(long[] keys, int count, long key) {
+    var base = 0;
+    var length = count;
+    while (length > 16) {
+      var half = length >>> 1;
+      base = keys[base + half] < key ? base + half : base;
+      length -= half;
+    }
+
+    var smaller = 0;
+    for (var i = base; i < base + length; i++)
+      smaller += keys[i] < key ? 1 : 0;
+    return base + smaller;
+  }
+
+  // The same, over keys stored in a mapped page.
+  private static int lowerBound(MappedByteBuffer buffer, int keysOffset, int count, long key) {
+    var base = 0;
+    var length = count;
+    while (length > 16) {
+      var half = length >>> 1;
+      base = buffer.getLong(keysOffset + 8 * (base + half)) < key ? base + half : base;
+      length -= half;
+    }
+
+    var smaller = 0;
+    for (var i = base; i < base + length; i++)
+      smaller += buffer.getLong(keysOffset + 8 * i) < key ? 1 : 0;
+    return base + smaller;
+  }
+
+  // A fixed number of decoded pages. When it's full, the clock hand
+  // sweeps over the slots: a page that was used since the hand last
+  // passed gets a second chance (we clear its flag and move on); the
+  // first one that wasn't is evicted. That approximates "least recently
+  // used" without moving anything around on every hit.
+  private static class PageCache {
+    private final int[] pages;
+    private final Node[] nodes;
+    private final boolean[] referenced;
+    private final IntIntHashMap slots = new IntIntHashMap();  // page -> slot
+    private int count;
+    private int hand;
+
+    PageCache(int capacity) {
+      pages = new int[capacity];
+      nodes = new Node[capacity];
+      referenced = new boolean[capacity];
+    }
+
+    Node get(int page) {
+      var slot = slots.getOrDefault(page, -1);
+      if (slot == -1)
+        return null;
+
+      referenced[slot] = true;
+      return nodes[slot];
+    }
+
+    void put(int page, Node node) {
+      var slot = slots.getOrDefault(page, -1);
+      if (slot == -1) {
+        slot = count < nodes.length ? count++ : evict();
+        slots.put(page, slot);
+        pages[slot] = page;
+      }
+      nodes[slot] = node;
+      referenced[slot] = true;
+    }
+
+    void remove(int page) {
+      var slot = slots.getOrDefault(page, -1);
+      if (slot == -1)
+        return;
+
+      slots.remove(page);
+      nodes[slot] = null;
+      referenced[slot] = false;
+    }
+
+    // Returns a slot we can reuse. Slots emptied by remove() are taken
+    // first, since they aren't referenced.
+    private int evict() {
+      while (true) {
+        var slot = hand;
+        hand = (hand + 1) % nodes.length;
+
+        if (nodes[slot] != null && referenced[slot]) {
+          referenced[slot] = false;
+          continue;
+        }
+
+        if (nodes[slot] != null)
+          slots.remove(pages[slot]);
+        return slot;
+      }
+    }
+  }
+}
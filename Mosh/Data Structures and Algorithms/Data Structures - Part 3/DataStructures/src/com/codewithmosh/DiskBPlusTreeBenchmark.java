@@ -0,0 +1,99 @@
+package com.codewithmosh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+// Builds a small DiskBPlusTree (SMALL entries, a few MB) and a big one
+// (args[0] entries, 16M by default: about 256 MB of keys and values),
+// then compares random lookups and short range scans on both.
+//
+// Run it with a heap much smaller than the big index, for example:
+//
+//   java -Xmx24m com.codewithmosh.DiskBPlusTreeBenchmark
+//
+// The index lives in memory-mapped pages outside the heap, and only a
+// small cache of inner nodes is on the heap, so lookups should cost
+// about the same on both trees as long as the file fits in the
+// operating system's page cache.
+//
+// This is a plain main() benchmark; take the numbers as a rough
+// comparison and ignore the first (warm-up) round.
+public class DiskBPlusTreeBenchmark {
+  private static final int SMALL = 100_000;
+  private static final int DEFAULT_BIG = 16_000_000;
+  private static final int COMMIT_EVERY = 256 * 1024;
+  private static final int QUERIES = 1_000_000;
+  private static final int RANGE_QUERIES = 100_000;
+  private static final int RANGE_KEYS = 100;
+
+  public static void main(String[] args) throws IOException {
+    var big = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BIG;
+    System.out.printf("Max heap: %d MB%n", Runtime.getRuntime().maxMemory() >> 20);
+
+    var smallFile = Files.createTempFile("small", ".bpt");
+    var bigFile = Files.createTempFile("big", ".bpt");
+    Files.delete(smallFile);
+    Files.delete(bigFile);
+
+    try (var smallTree = DiskBPlusTree.open(smallFile);
+         var bigTree = DiskBPlusTree.open(bigFile)) {
+      build("small", smallTree, SMALL);
+      build("big  ", bigTree, big);
+
+      for (var round = 1; round <= 3; round++) {
+        System.out.println("Round " + round);
+        lookups("small", smallTree, SMALL);
+        lookups("big  ", bigTree, big);
+        ranges("small", smallTree, SMALL);
+        ranges("big  ", bigTree, big);
+      }
+    } finally {
+      Files.deleteIfExists(smallFile);
+      Files.deleteIfExists(bigFile);
+    }
+  }
+
+  // Even keys in ascending order, so odd lookups are misses.
+  private static void build(String name, DiskBPlusTree tree, int entries) throws IOException {
+    var start = System.nanoTime();
+    for (var i = 0; i < entries; i++) {
+      tree.put(2L * i, i);
+      if ((i + 1) % COMMIT_EVERY == 0)
+        tree.commit();
+    }
+    tree.commit();
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("Built %s: %,d entries in %.1f s, %d levels, %,d MB of pages%n",
+            name, tree.size(), nanos / 1e9, tree.height(),
+            (long) tree.pageCount() * DiskBPlusTree.PAGE_SIZE >> 20);
+  }
+
+  private static void lookups(String name, DiskBPlusTree tree, int entries) {
+    var random = new Random(42);
+    var found = 0;
+    var start = System.nanoTime();
+    for (var i = 0; i < QUERIES; i++)
+      if (tree.containsKey(random.nextInt(2 * entries)))
+        found++;
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("  %s lookups: %7.1f ns/lookup (%d of %d found)%n",
+            name, (double) nanos / QUERIES, found, QUERIES);
+  }
+
+  private static void ranges(String name, DiskBPlusTree tree, int entries) {
+    var random = new Random(42);
+    var sum = new long[1];
+    var start = System.nanoTime();
+    for (var i = 0; i < RANGE_QUERIES; i++) {
+      long from = random.nextInt(2 * entries);
+      tree.forEach(from, from + 2 * RANGE_KEYS, (key, value) -> sum[0] += value);
+    }
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("  %s scans:   %7.1f ns/scan of %d keys (checksum %d)%n",
+            name, (double) nanos / RANGE_QUERIES, RANGE_KEYS, sum[0]);
+  }
+}
@@ -1,43 +1,424 @@
 package com.codewithmosh;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 public class Expression {
+  private static final int READ_SIZE = 8192;
+  private static final int MIN_CHUNK_SIZE = 1 << 16;
+  private static final int MAX_CACHED_PROGRAMS = 1024;
 
-  private final List<Character> leftBrackets
-          = Arrays.asList('(', '<', '[', '{');
-  private final List<Character> rightBrackets
-          = Arrays.asList(')', '>', ']', '}');
+  private static final Map<String, CompiledExpression> programs = new ConcurrentHashMap<>();
 
-  public boolean isBalanced(String input) {
-    Stack<Character> stack = new Stack<>();
+  // Instead of looking every character up in a list of brackets, we look
+  // it up in a table with an entry for every ASCII character: 1 to 4 for
+  // the left brackets ( < [ {, -1 to -4 for the matching right brackets
+  // and 0 for everything else. Two brackets match when their entries
+  // add up to 0.
+  private static final byte[] BRACKETS = new byte[128];
 
-    for (char ch : input.toCharArray()) {
-      if (isLeftBracket(ch))
-        stack.push(ch);
+  static {
+    var left = "(<[{";
+    var right = ")>]}";
+    for (var i = 0; i < left.length(); i++) {
+      BRACKETS[left.charAt(i)] = (byte) (i + 1);
+      BRACKETS[right.charAt(i)] = (byte) -(i + 1);
+    }
+  }
 
-      if (isRightBracket(ch)) {
-        if (stack.empty()) return false;
+  // O(n)
+  public boolean isBalanced(CharSequence input) {
+    var stack = new Stack();
 
-        var top = stack.pop();
-        if (!bracketsMatch(top, ch)) return false;
-      }
-    }
+    for (var i = 0; i < input.length(); i++)
+      if (!accept(stack, bracketOf(input.charAt(i))))
+        return false;
+
+    return stack.isEmpty();
+  }
+
+  // O(n). Reads the input in small pieces, so it only needs memory for
+  // the brackets that are still open.
+  public boolean isBalanced(Reader reader) throws IOException {
+    var stack = new Stack();
+    var buffer = new char[READ_SIZE];
+
+    int count;
+    while ((count = reader.read(buffer)) != -1)
+      for (var i = 0; i < count; i++)
+        if (!accept(stack, bracketOf(buffer[i])))
+          return false;
+
+    return stack.isEmpty();
+  }
+
+  // O(n / p) on p threads, plus combining the chunks.
+  //
+  // A chunk can't be checked on its own, because its brackets may be
+  // closed (or opened) in another chunk. But once we match the brackets
+  // inside a chunk, what's left is always some right brackets followed
+  // by some left brackets: ")]" + "{(". We reduce every chunk to that
+  // summary on its own thread. Two neighbouring summaries combine by
+  // matching the left brackets at the end of the first one with the
+  // right brackets at the start of the second one. Combining is
+  // associative, so the summaries can be combined in any grouping, as
+  // long as they stay in order. The input is balanced if the combined
+  // summary is empty.
+  public boolean isBalancedParallel(CharSequence input) {
+    var processors = Runtime.getRuntime().availableProcessors();
+    var chunkCount = Math.max(1, Math.min(processors * 4, input.length() / MIN_CHUNK_SIZE));
+    var chunkSize = (input.length() + chunkCount - 1) / chunkCount;
 
-    return stack.empty();
+    var summary = IntStream.range(0, chunkCount)
+            .parallel()
+            .mapToObj(chunk -> Summary.of(input,
+                    chunk * chunkSize,
+                    Math.min(input.length(), (chunk + 1) * chunkSize)))
+            .reduce(Summary::combine)
+            .get();
+
+    return summary.isEmpty();
+  }
+
+  // Compiles an arithmetic expression like "price * (1 + rate) ^ years"
+  // into a program that can be evaluated many times (see
+  // CompiledExpression). Expressions can use numbers, variables
+  // (letters, digits and _), the operators + - * / % ^ (power), unary
+  // minus and plus, and any of the brackets isBalanced() knows for
+  // grouping.
+  //
+  // Programs are cached by their source, so compiling the same formula
+  // again is a single hash table lookup. When the cache is full, we
+  // simply empty it.
+  public static CompiledExpression compile(String source) {
+    var program = programs.get(source);
+    if (program != null)
+      return program;
+
+    program = new Compiler(source).compile();
+    if (programs.size() >= MAX_CACHED_PROGRAMS)
+      programs.clear();
+    var existing = programs.putIfAbsent(source, program);
+    return existing != null ? existing : program;
   }
 
-  private boolean isLeftBracket(char ch) {
-    return leftBrackets.contains(ch);
+  private static int bracketOf(char ch) {
+    return ch < BRACKETS.length ? BRACKETS[ch] : 0;
   }
 
-  private boolean isRightBracket(char ch) {
-    return rightBrackets.contains(ch);
+  // Pushes a left bracket, or pops the left bracket a right bracket
+  // closes. Returns false if the right bracket doesn't match.
+  private static boolean accept(Stack stack, int bracket) {
+    if (bracket > 0)
+      stack.push(bracket);
+    else if (bracket < 0)
+      return !stack.isEmpty() && stack.pop() + bracket == 0;
+
+    return true;
+  }
+
+  // The right brackets (in input order) and left brackets (from the
+  // bottom of the stack to the top) left over in part of the input, or
+  // "mismatched" if it has a pair like "(]" that can never balance.
+  private static class Summary {
+    private static final Summary MISMATCHED = new Summary();
+
+    private byte[] rights = new byte[16];
+    private int rightCount;
+    private byte[] lefts = new byte[16];
+    private int leftCount;
+
+    public static Summary of(CharSequence input, int from, int to) {
+      var summary = new Summary();
+
+      for (var i = from; i < to; i++) {
+        var bracket = bracketOf(input.charAt(i));
+        if (bracket > 0)
+          summary.addLeft(bracket);
+        else if (bracket < 0) {
+          if (summary.leftCount == 0)
+            summary.addRight(bracket);
+          else if (summary.lefts[--summary.leftCount] + bracket != 0)
+            return MISMATCHED;
+        }
+      }
+
+      return summary;
+    }
+
+    public static Summary combine(Summary first, Summary second) {
+      if (first == MISMATCHED || second == MISMATCHED)
+        return MISMATCHED;
+
+      var matched = Math.min(first.leftCount, second.rightCount);
+      for (var i = 0; i < matched; i++)
+        if (first.lefts[first.leftCount - 1 - i] + second.rights[i] != 0)
+          return MISMATCHED;
+
+      // Whatever wasn't matched carries over: the first summary's right
+      // brackets and unmatched left brackets, then the second summary's
+      // unmatched right brackets and its left brackets.
+      var result = new Summary();
+      result.addRights(first.rights, 0, first.rightCount);
+      result.addRights(second.rights, matched, second.rightCount);
+      result.addLefts(first.lefts, 0, first.leftCount - matched);
+      result.addLefts(second.lefts, 0, second.leftCount);
+      return result;
+    }
+
+    public boolean isEmpty() {
+      return this != MISMATCHED && rightCount == 0 && leftCount == 0;
+    }
+
+    private void addLeft(int bracket) {
+      if (leftCount == lefts.length)
+        lefts = Arrays.copyOf(lefts, leftCount * 2);
+      lefts[leftCount++] = (byte) bracket;
+    }
+
+    private void addRight(int bracket) {
+      if (rightCount == rights.length)
+        rights = Arrays.copyOf(rights, rightCount * 2);
+      rights[rightCount++] = (byte) bracket;
+    }
+
+    private void addLefts(byte[] brackets, int from, int to) {
+      if (leftCount + to - from > lefts.length)
+        lefts = Arrays.copyOf(lefts, Math.max(lefts.length * 2, leftCount + to - from));
+      System.arraycopy(brackets, from, lefts, leftCount, to - from);
+      leftCount += to - from;
+    }
+
+    private void addRights(byte[] brackets, int from, int to) {
+      if (rightCount + to - from > rights.length)
+        rights = Arrays.copyOf(rights, Math.max(rights.length * 2, rightCount + to - from));
+      System.arraycopy(brackets, from, rights, rightCount, to - from);
+      rightCount += to - from;
+    }
   }
 
-  private boolean bracketsMatch(char left, char right) {
-    return leftBrackets.indexOf(left) == rightBrackets.indexOf(right);
+  // Converts the infix source to postfix with Dijkstra's shunting-yard
+  // algorithm: operands go straight to the output, and operators wait
+  // on a stack until an operator with lower precedence (or a closing
+  // bracket) comes along. Left brackets go on the same stack, as
+  // negative numbers (-1 to -4, from the bracket table), so a right
+  // bracket matches the left bracket it pops if both have the same
+  // value.
+  //
+  // As we output each instruction, we track the depth of the stack it
+  // will run on, which gives us its register.
+  private static class Compiler {
+    private final String source;
+    private int position;
+
+    private final Stack operators = new Stack();
+    private final List<String> variables = new ArrayList<>();
+    private double[] constants = new double[8];
+    private int constantCount;
+
+    private int[] operations = new int[16];
+    private int[] operands = new int[16];
+    private int[] targets = new int[16];
+    private int count;
+
+    private int depth;
+    private int maxDepth;
+
+    public Compiler(String source) {
+      this.source = source;
+    }
+
+    public CompiledExpression compile() {
+      var expectOperand = true;
+
+      while (skipSpaces()) {
+        var ch = source.charAt(position);
+        var bracket = bracketOf(ch);
+
+        if (expectOperand) {
+          if (Character.isDigit(ch) || ch == '.') {
+            addConstant(readNumber());
+            expectOperand = false;
+          } else if (Character.isLetter(ch) || ch == '_') {
+            addVariable(readName());
+            expectOperand = false;
+          } else if (ch == '-') {
+            operators.push(CompiledExpression.NEGATE);
+            position++;
+          } else if (ch == '+')
+            position++;
+          else if (bracket > 0) {
+            operators.push(-bracket);
+            position++;
+          } else
+            throw error("Expected a number, variable or bracket");
+        } else if (bracket < 0) {
+          closeBracket(-bracket);
+          position++;
+        } else {
+          var operator = binaryOperator(ch);
+          if (operator == -1)
+            throw error("Expected an operator");
+          while (!operators.isEmpty() && operators.peek() >= 0
+                  && popsBefore(operators.peek(), operator))
+            addOperator(operators.pop());
+          operators.push(operator);
+          position++;
+          expectOperand = true;
+        }
+      }
+
+      if (expectOperand)
+        throw error("Unexpected end of expression");
+
+      while (!operators.isEmpty()) {
+        var operator = operators.pop();
+        if (operator < 0)
+          throw error("Unclosed bracket");
+        addOperator(operator);
+      }
+
+      return new CompiledExpression(source, variables,
+              Arrays.copyOf(operations, count),
+              Arrays.copyOf(operands, count),
+              Arrays.copyOf(targets, count),
+              Arrays.copyOf(constants, constantCount),
+              maxDepth);
+    }
+
+    private void closeBracket(int bracket) {
+      while (!operators.isEmpty() && operators.peek() >= 0)
+        addOperator(operators.pop());
+
+      if (operators.isEmpty())
+        throw error("Unmatched closing bracket");
+      if (operators.pop() != -bracket)
+        throw error("Mismatched bracket");
+    }
+
+    // Whether the operator on top of the stack runs before the next
+    // one. ^ and unary minus group from the right (2 ^ 3 ^ 2 is
+    // 2 ^ (3 ^ 2)); the others group from the left.
+    private static boolean popsBefore(int top, int next) {
+      var rightToLeft = next == CompiledExpression.POWER || next == CompiledExpression.NEGATE;
+      return precedence(top) > precedence(next)
+              || (precedence(top) == precedence(next) && !rightToLeft);
+    }
+
+    private static int precedence(int operator) {
+      switch (operator) {
+        case CompiledExpression.ADD:
+        case CompiledExpression.SUBTRACT:
+          return 1;
+        case CompiledExpression.MULTIPLY:
+        case CompiledExpression.DIVIDE:
+        case CompiledExpression.REMAINDER:
+          return 2;
+        case CompiledExpression.NEGATE:
+          return 3;
+        default:
+          return 4;
+      }
+    }
+
+    private static int binaryOperator(char ch) {
+      switch (ch) {
+        case '+': return CompiledExpression.ADD;
+        case '-': return CompiledExpression.SUBTRACT;
+        case '*': return CompiledExpression.MULTIPLY;
+        case '/': return CompiledExpression.DIVIDE;
+        case '%': return CompiledExpression.REMAINDER;
+        case '^': return CompiledExpression.POWER;
+        default: return -1;
+      }
+    }
+
+    private void addConstant(double value) {
+      if (constantCount == constants.length)
+        constants = Arrays.copyOf(constants, constantCount * 2);
+      constants[constantCount] = value;
+      addInstruction(CompiledExpression.CONSTANT, constantCount++, depth++);
+      maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void addVariable(String name) {
+      var index = variables.indexOf(name);
+      if (index == -1) {
+        index = variables.size();
+        variables.add(name);
+      }
+      addInstruction(CompiledExpression.VARIABLE, index, depth++);
+      maxDepth = Math.max(maxDepth, depth);
+    }
+
+    // A binary operator combines the top two registers into the lower
+    // one; unary minus works on the top register.
+    private void addOperator(int operator) {
+      if (operator != CompiledExpression.NEGATE)
+        depth--;
+      addInstruction(operator, 0, depth - 1);
+    }
+
+    private void addInstruction(int operation, int operand, int target) {
+      if (count == operations.length) {
+        operations = Arrays.copyOf(operations, count * 2);
+        operands = Arrays.copyOf(operands, count * 2);
+        targets = Arrays.copyOf(targets, count * 2);
+      }
+      operations[count] = operation;
+      operands[count] = operand;
+      targets[count] = target;
+      count++;
+    }
+
+    private double readNumber() {
+      var start = position;
+      while (position < source.length()
+              && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.'))
+        position++;
+
+      if (position < source.length() && (source.charAt(position) == 'e' || source.charAt(position) == 'E')) {
+        position++;
+        if (position < source.length() && (source.charAt(position) == '+' || source.charAt(position) == '-'))
+          position++;
+        while (position < source.length() && Character.isDigit(source.charAt(position)))
+          position++;
+      }
+
+      try {
+        return Double.parseDouble(source.substring(start, position));
+      } catch (NumberFormatException e) {
+        position = start;
+        throw error("Invalid number");
+      }
+    }
+
+    private String readName() {
+      var start = position;
+      while (position < source.length()
+              && (Character.isLetterOrDigit(source.charAt(position)) || source.charAt(position) == '_'))
+        position++;
+
+      return source.substring(start, position);
+    }
+
+    // Returns false at the end of the source.
+    private boolean skipSpaces() {
+      while (position < source.length() && Character.isWhitespace(source.charAt(position)))
+        position++;
+
+      return position < source.length();
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(
+              message + " at position " + position + " in \"" + source + "\"");
+    }
   }
 }
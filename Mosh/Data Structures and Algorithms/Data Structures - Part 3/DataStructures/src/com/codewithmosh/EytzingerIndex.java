@@ -0,0 +1,139 @@
+package com.codewithmosh;
+
+// A search index over a sorted int array, laid out in Eytzinger
+// (breadth-first) order.
+//
+// Binary search over a sorted array jumps around: the first probes land
+// far apart, so every one of them is a cache miss. In Eytzinger order we
+// store the implicit binary search tree level by level: the root at 1,
+// its children at 2 and 3, their children at 4..7, and so on (the
+// children of k are 2k and 2k + 1). The first few levels all sit in
+// the same few cache lines, and the 16 descendants of a node four levels
+// down are next to each other, so a single memory fetch serves several
+// steps of the search.
+//
+// The descent has no unpredictable branches: at each level we compute
+// the next index as 2k + (tree[k] < target ? 1 : 0). We pad the tree to
+// a full 2^levels - 1 nodes (with Integer.MAX_VALUE at the end of the
+// sorted order), so every search takes exactly the same number of steps.
+//
+// Java has no prefetch instruction, so search() fakes one: at every
+// level it also reads the first of the node's 16 great-great-grandchildren.
+// That read doesn't depend on the comparison, so the CPU can start
+// fetching the cache line four levels ahead while we're still deciding
+// which way to go. (To keep the JIT from dropping the reads as unused,
+// we add them up and, once in a great while, store the sum in a static
+// field. Readers don't write any shared state on every search, so
+// threads searching the same index don't fight over a cache line.)
+//
+// searchBatch() goes further and runs several searches side by side, one
+// level at a time. The loads of different searches don't depend on each
+// other, so the CPU can have many cache misses in flight at once instead
+// of waiting for each one in turn.
+public class EytzingerIndex {
+  private static final int BATCH_SIZE = 16;
+
+  // The padded tree has 2^levels slots, and the descent computes indexes
+  // up to 2^(levels + 1) - 1, so levels can be 30 at most.
+  public static final int MAX_ITEMS = (1 << 30) - 1;
+
+  private static int prefetched;
+
+  private final int[] tree;
+  private final int[] positions;
+  private final int levels;
+
+  // The last node whose 16 great-great-grandchildren start inside the
+  // tree. Deeper nodes touch its descendants instead.
+  private final int lastPrefetchParent;
+
+  // O(n). The input must be sorted in ascending order.
+  public EytzingerIndex(int[] sorted) {
+    if (sorted.length > MAX_ITEMS)
+      throw new IllegalArgumentException("An index holds at most " + MAX_ITEMS + " items.");
+
+    levels = 32 - Integer.numberOfLeadingZeros(sorted.length);
+    var size = (1 << levels) - 1;
+
+    // Index 0 is unused so that the children of k are 2k and 2k + 1.
+    tree = new int[size + 1];
+    positions = new int[size + 1];
+    lastPrefetchParent = size / 16;
+    build(sorted, 0, 1);
+  }
+
+  // Fills the tree with an in-order walk: visiting the nodes in order
+  // visits them from smallest to largest, so we hand out the sorted
+  // items one by one. Past the end of the input we use padding.
+  private int build(int[] sorted, int next, int k) {
+    if (k >= tree.length)
+      return next;
+
+    next = build(sorted, next, 2 * k);
+
+    if (next < sorted.length) {
+      tree[k] = sorted[next];
+      positions[k] = next;
+    } else {
+      tree[k] = Integer.MAX_VALUE;
+      positions[k] = -1;
+    }
+    next++;
+
+    return build(sorted, next, 2 * k + 1);
+  }
+
+  // O(log n). Returns the index of target in the original sorted array,
+  // or -1 if it's not there.
+  public int search(int target) {
+    var k = 1;
+    var touched = 0;
+    for (var level = 0; level < levels; level++) {
+      // Near the bottom, 16k is past the end of the tree; we clamp k
+      // first, so 16k can't overflow either.
+      touched += tree[16 * Math.min(k, lastPrefetchParent)];
+      k = 2 * k + (tree[k] < target ? 1 : 0);
+    }
+
+    if ((touched & 0xFFFFF) == 0x5A5A5)
+      prefetched = touched;
+    return resolve(k, target);
+  }
+
+  // Looks up every query and writes the results (same as search())
+  // into out.
+  public void searchBatch(int[] queries, int[] out) {
+    if (out.length < queries.length)
+      throw new IllegalArgumentException("out must be at least as long as queries.");
+
+    var k = new int[BATCH_SIZE];
+
+    for (var start = 0; start < queries.length; start += BATCH_SIZE) {
+      var count = Math.min(BATCH_SIZE, queries.length - start);
+
+      for (var i = 0; i < count; i++)
+        k[i] = 1;
+
+      for (var level = 0; level < levels; level++)
+        for (var i = 0; i < count; i++)
+          k[i] = 2 * k[i] + (tree[k[i]] < queries[start + i] ? 1 : 0);
+
+      for (var i = 0; i < count; i++)
+        out[start + i] = resolve(k[i], queries[start + i]);
+    }
+  }
+
+  // After the descent, k has walked off the bottom of the tree. Each
+  // 1 bit at the end of k is a step where we went right (the node was
+  // smaller than the target). Dropping those steps and the last left
+  // step takes us back to the last node that was >= target, which is
+  // the lower bound. If k becomes 0, every item is smaller than target.
+  private int resolve(int k, int target) {
+    k >>= Integer.numberOfTrailingZeros(~k) + 1;
+
+    if (k == 0 || tree[k] != target)
+      return -1;
+
+    return positions[k];
+  }
+}
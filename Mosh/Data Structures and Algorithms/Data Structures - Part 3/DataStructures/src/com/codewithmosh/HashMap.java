@@ -19,9 +19,25 @@ public class HashMap {
         }
     }
 
-    private Entry[] entries = new Entry[5];
+    private Entry[] entries;
     private int count;
 
+    // Optional. If set, we ask it before probing, and a "definitely not"
+    // answer saves us the probe sequence (see MembershipFilter).
+    private MembershipFilter filter;
+
+    public HashMap() {
+        this(5, null);
+    }
+
+    public HashMap(int capacity, MembershipFilter filter) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be 1 or greater.");
+
+        entries = new Entry[capacity];
+        this.filter = filter;
+    }
+
     public void put(int key, String value) {
         var entry = getEntry(key);
         if (entry != null) {
@@ -34,9 +50,16 @@ public class HashMap {
 
         entries[getIndex(key)] = new Entry(key, value);
         count++;
+
+        // A full filter would miss this key, so we stop using it.
+        if (filter != null && !filter.add(MembershipFilter.hash(key)))
+            filter = null;
     }
 
     public String get(int key) {
+        if (filter != null && !filter.mightContain(MembershipFilter.hash(key)))
+            return null;
+
         var entry = getEntry(key);
         return entry != null ? entry.value : null;
     }
@@ -48,12 +71,20 @@ public class HashMap {
 
         entries[index] = null;
         count--;
+
+        if (filter instanceof DeletableMembershipFilter)
+            ((DeletableMembershipFilter) filter).remove(MembershipFilter.hash(key));
     }
 
     public int size() {
         return count;
     }
 
+    // The filter in use, or null if there's none (or it filled up).
+    public MembershipFilter getFilter() {
+        return filter;
+    }
+
     private Entry getEntry(int key) {
         var index = getIndex(key);
         return index >= 0 ? entries[index] : null;
@@ -13,7 +13,23 @@ public class HashTable {
     }
   }
 
-  private LinkedList<Entry>[] entries = new LinkedList[5];
+  private LinkedList<Entry>[] entries;
+
+  // Optional. If set, we ask it before walking a bucket, and a
+  // "definitely not" answer saves us the walk (see MembershipFilter).
+  private MembershipFilter filter;
+
+  public HashTable() {
+    this(5, null);
+  }
+
+  public HashTable(int capacity, MembershipFilter filter) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("Capacity must be 1 or greater.");
+
+    entries = new LinkedList[capacity];
+    this.filter = filter;
+  }
 
   public void put(int key, String value) {
     var entry = getEntry(key);
@@ -23,9 +39,16 @@ public class HashTable {
     }
 
     getOrCreateBucket(key).add(new Entry(key, value));
+
+    // A full filter would miss this key, so we stop using it.
+    if (filter != null && !filter.add(MembershipFilter.hash(key)))
+      filter = null;
   }
 
   public String get(int key) {
+    if (filter != null && !filter.mightContain(MembershipFilter.hash(key)))
+      return null;
+
     var entry = getEntry(key);
 
     return (entry == null) ? null : entry.value;
@@ -36,6 +59,14 @@ public class HashTable {
     if (entry == null)
       throw new IllegalStateException();
     getBucket(key).remove(entry);
+
+    if (filter instanceof DeletableMembershipFilter)
+      ((DeletableMembershipFilter) filter).remove(MembershipFilter.hash(key));
+  }
+
+  // The filter in use, or null if there's none (or it filled up).
+  public MembershipFilter getFilter() {
+    return filter;
   }
 
   private LinkedList<Entry> getBucket(int key) {
@@ -45,8 +76,10 @@ public class HashTable {
   private LinkedList<Entry> getOrCreateBucket(int key) {
     var index = hash(key);
     var bucket = entries[index];
-    if (bucket == null)
-      entries[index] = new LinkedList<>();
+    if (bucket == null) {
+      bucket = new LinkedList<>();
+      entries[index] = bucket;
+    }
 
     return bucket;
   }
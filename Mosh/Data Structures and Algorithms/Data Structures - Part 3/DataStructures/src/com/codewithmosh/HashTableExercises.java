@@ -1,11 +1,14 @@
 package com.codewithmosh;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.stream.IntStream;
 
+// These exercises use IntIntHashMap and IntHashSet instead of
+// HashMap<Integer, Integer> and HashSet<Integer>, so no number gets
+// boxed. The algorithms are the same.
 public class HashTableExercises {
+    // Below this many numbers per chunk, splitting the work across
+    // threads costs more than it saves.
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
 
     // O(n)
     public int[] twoSum(int[] numbers, int target) {
@@ -27,12 +30,13 @@ public class HashTableExercises {
         // first. If we find two numbers that add up to the target,
         // we simply return their indexes.
 
-        Map<Integer, Integer> map = new HashMap<>();
+        var map = new IntIntHashMap();
 
         for (int i = 0; i < numbers.length; i++) {
             int complement = target - numbers[i];
-            if (map.containsKey(complement)) {
-                return new int[] { map.get(complement), i };
+            var index = map.getOrDefault(complement, -1);
+            if (index != -1) {
+                return new int[] { index, i };
             }
             map.put(numbers[i], i);
         }
@@ -45,30 +49,72 @@ public class HashTableExercises {
 
     // O(n)
     public int mostFrequent(int[] numbers) {
+        if (numbers.length == 0)
+            throw new IllegalArgumentException();
+
         // To find the most frequent item in an array, we have to count the
         // number of times each item has been repeated. We can use a hash
         // table to store the items and their frequencies.
-        Map<Integer, Integer> map = new HashMap<>();
-        for (var number : numbers) {
-            var count = map.getOrDefault(number, 0);
-            map.put(number, count + 1);
-        }
-
-        // Once we've populated our hash table, we need to iterate over all
-        // key/value pairs and find the one with the highest frequency.
-        int max = -1;
-        int result = numbers[0];
-        for (var item : map.entrySet()) {
-            if (item.getValue() > max) {
-                max = item.getValue();
-                result = item.getKey();
-            }
-        }
+        var map = new IntIntHashMap();
+        for (var number : numbers)
+            map.addTo(number, 1);
 
         // Runtime complexity of this method is O(n) because we have to
         // iterate the entire array to populate our hash table.
 
-        return result;
+        return mostFrequent(map);
+    }
+
+    // O(n / p) on p threads, plus merging the counts.
+    public int mostFrequentParallel(int[] numbers) {
+        if (numbers.length == 0)
+            throw new IllegalArgumentException();
+
+        // We split the array into chunks and count every chunk on its own
+        // thread, into its own hash table, so the threads never share
+        // anything while counting. Then we add up the tables.
+        var processors = Runtime.getRuntime().availableProcessors();
+        var chunkCount = Math.max(1, Math.min(processors * 4, numbers.length / MIN_CHUNK_SIZE));
+        var chunkSize = (numbers.length + chunkCount - 1) / chunkCount;
+
+        var map = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> {
+                    var from = chunk * chunkSize;
+                    var to = Math.min(numbers.length, from + chunkSize);
+                    var counts = new IntIntHashMap();
+                    for (var i = from; i < to; i++)
+                        counts.addTo(numbers[i], 1);
+                    return counts;
+                })
+                .reduce(HashTableExercises::merge)
+                .get();
+
+        return mostFrequent(map);
+    }
+
+    // Once we've populated our hash table, we need to iterate over all
+    // key/value pairs and find the one with the highest frequency. Ties
+    // go to the smallest number, so both versions agree.
+    private static int mostFrequent(IntIntHashMap map) {
+        var max = new int[] { -1, 0 };  // frequency, number
+        map.forEach((number, count) -> {
+            if (count > max[0] || (count == max[0] && number < max[1])) {
+                max[0] = count;
+                max[1] = number;
+            }
+        });
+
+        return max[1];
+    }
+
+    // Adds the smaller table into the larger one, so we do as few
+    // lookups as possible.
+    private static IntIntHashMap merge(IntIntHashMap first, IntIntHashMap second) {
+        var larger = first.size() >= second.size() ? first : second;
+        var smaller = larger == first ? second : first;
+        smaller.forEach(larger::addTo);
+        return larger;
     }
 
     // O(n)
@@ -89,7 +135,7 @@ public class HashTableExercises {
         // No need to iterate the array to find it.
 
         // So, we start by adding all the numbers to a set for quick look up.
-        Set<Integer> set = new HashSet<>();
+        var set = new IntHashSet();
         for (var number : numbers)
             set.add(number);
 
@@ -0,0 +1,119 @@
+package com.codewithmosh;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Compares the HashTableExercises algorithms on IntIntHashMap and
+// IntHashSet with the same algorithms on java.util.HashMap<Integer,
+// Integer> and HashSet<Integer> (the way they were written before).
+//
+// The input is ITEMS random numbers between 0 and ITEMS / 10, so every
+// number appears about 10 times. twoSum gets a target that no two
+// numbers add up to, so it has to go through the whole array.
+//
+// Besides the time, we report how many garbage collections ran; that's
+// where most of the time of the boxed versions goes.
+//
+// (java.util.HashMap is written out in full because this package has
+// its own HashMap.)
+public class HashTableExercisesBenchmark {
+  private static final int ITEMS = 10_000_000;
+
+  public static void main(String[] args) {
+    var random = new Random(42);
+    var numbers = new int[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      numbers[i] = random.nextInt(ITEMS / 10);
+
+    // For twoSum, the numbers have to be distinct for the map to hold
+    // all of them, and no two of them can add up to -1.
+    var distinct = new int[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      distinct[i] = i;
+
+    var exercises = new HashTableExercises();
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      measure("twoSum              boxed    ", () -> boxedTwoSum(distinct, -1));
+      measure("twoSum              primitive", () -> exercises.twoSum(distinct, -1));
+
+      measure("mostFrequent        boxed    ", () -> boxedMostFrequent(numbers));
+      measure("mostFrequent        primitive", () -> exercises.mostFrequent(numbers));
+      measure("mostFrequent        parallel ", () -> exercises.mostFrequentParallel(numbers));
+
+      measure("countPairsWithDiff  boxed    ", () -> boxedCountPairsWithDiff(numbers, 3));
+      measure("countPairsWithDiff  primitive", () -> exercises.countPairsWithDiff(numbers, 3));
+    }
+  }
+
+  private static void measure(String name, Runnable task) {
+    var collections = collectionCount();
+    var start = System.nanoTime();
+    task.run();
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("  %s: %8.1f ms, %4d GCs%n",
+            name,
+            nanos / 1_000_000.0,
+            collectionCount() - collections);
+  }
+
+  private static long collectionCount() {
+    var count = 0L;
+    for (var bean : ManagementFactory.getGarbageCollectorMXBeans())
+      count += Math.max(0, bean.getCollectionCount());
+    return count;
+  }
+
+  private static int[] boxedTwoSum(int[] numbers, int target) {
+    Map<Integer, Integer> map = new java.util.HashMap<>();
+
+    for (var i = 0; i < numbers.length; i++) {
+      var complement = target - numbers[i];
+      if (map.containsKey(complement))
+        return new int[] { map.get(complement), i };
+      map.put(numbers[i], i);
+    }
+
+    return null;
+  }
+
+  private static int boxedMostFrequent(int[] numbers) {
+    Map<Integer, Integer> map = new java.util.HashMap<>();
+    for (var number : numbers)
+      map.put(number, map.getOrDefault(number, 0) + 1);
+
+    var max = -1;
+    var result = numbers[0];
+    for (var item : map.entrySet()) {
+      if (item.getValue() > max) {
+        max = item.getValue();
+        result = item.getKey();
+      }
+    }
+
+    return result;
+  }
+
+  private static int boxedCountPairsWithDiff(int[] numbers, int difference) {
+    Set<Integer> set = new HashSet<>();
+    for (var number : numbers)
+      set.add(number);
+
+    var count = 0;
+    for (var number : numbers) {
+      if (set.contains(number + difference))
+        count++;
+      if (set.contains(number - difference))
+        count++;
+      set.remove(number);
+    }
+
+    return count;
+  }
+}
@@ -0,0 +1,146 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// A set of ints that doesn't box. It works like IntIntHashMap, without
+// the values: one int[] of keys with linear probing, where 0 marks an
+// empty slot and the key 0 itself is tracked in a separate field.
+public class IntHashSet {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private int mask;
+    private int count;
+    private int threshold;
+
+    private boolean hasZero;
+
+    public IntHashSet() {
+        this(16);
+    }
+
+    public IntHashSet(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size must be 0 or greater.");
+
+        allocate(capacityFor(expectedSize));
+    }
+
+    // O(1). Returns false if the set already had the key.
+    public boolean add(int key) {
+        if (key == FREE) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            count++;
+            return true;
+        }
+
+        var slot = find(key);
+        if (keys[slot] != FREE)
+            return false;
+
+        keys[slot] = key;
+        if (++count > threshold)
+            rehash(keys.length * 2);
+        return true;
+    }
+
+    public boolean contains(int key) {
+        if (key == FREE)
+            return hasZero;
+
+        return keys[find(key)] != FREE;
+    }
+
+    // O(1). Moves the keys that collided with this one back into the gap
+    // (see IntIntHashMap.remove).
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasZero)
+                return false;
+            hasZero = false;
+            count--;
+            return true;
+        }
+
+        var gap = find(key);
+        if (keys[gap] == FREE)
+            return false;
+
+        var slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            var current = keys[slot];
+            if (current == FREE)
+                break;
+
+            var home = homeOf(current);
+            var stays = gap <= slot
+                    ? gap < home && home <= slot
+                    : gap < home || home <= slot;
+            if (stays)
+                continue;
+
+            keys[gap] = current;
+            gap = slot;
+        }
+
+        keys[gap] = FREE;
+        count--;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasZero = false;
+        count = 0;
+    }
+
+    private int find(int key) {
+        var slot = homeOf(key);
+        while (keys[slot] != FREE && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private int homeOf(int key) {
+        var hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("Set is full.");
+
+        var oldKeys = keys;
+        allocate(capacity);
+
+        for (var key : oldKeys)
+            if (key != FREE)
+                keys[find(key)] = key;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        var capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize && capacity < MAX_CAPACITY)
+            capacity *= 2;
+        return capacity;
+    }
+}
@@ -0,0 +1,219 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// A hash map from int to int that doesn't box.
+//
+// java.util.HashMap<Integer, Integer> allocates an Integer for most keys
+// and values, plus a Node for every entry. With hundreds of millions of
+// entries, that's mostly work for the garbage collector. Here, the keys
+// and values live in one int[], side by side (key, value, key, value,
+// ...), so a lookup usually touches a single cache line.
+//
+// Collisions are resolved with linear probing: if a slot is taken, we
+// try the next one. Key 0 marks an empty slot, so the entry for the key
+// 0 itself is kept in two separate fields.
+public class IntIntHashMap {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private int[] slots;
+    private int mask;
+    private int count;
+    private int threshold;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public interface EntryVisitor {
+        void visit(int key, int value);
+    }
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size must be 0 or greater.");
+
+        allocate(capacityFor(expectedSize));
+    }
+
+    // O(1)
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!hasZeroKey)
+                count++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+
+        var slot = find(key);
+        if (slots[slot] == FREE) {
+            slots[slot] = key;
+            slots[slot + 1] = value;
+            if (++count > threshold)
+                rehash(capacity() * 2);
+        } else
+            slots[slot + 1] = value;
+    }
+
+    // Adds delta to the value of key (0 if key is missing) and returns
+    // the new value. Counting with this is one lookup instead of a get()
+    // followed by a put().
+    public int addTo(int key, int delta) {
+        if (key == FREE) {
+            if (!hasZeroKey) {
+                count++;
+                zeroValue = 0;
+            }
+            hasZeroKey = true;
+            return zeroValue += delta;
+        }
+
+        var slot = find(key);
+        if (slots[slot] != FREE)
+            return slots[slot + 1] += delta;
+
+        slots[slot] = key;
+        slots[slot + 1] = delta;
+        if (++count > threshold)
+            rehash(capacity() * 2);
+        return delta;
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE)
+            return hasZeroKey ? zeroValue : defaultValue;
+
+        var slot = find(key);
+        return slots[slot] != FREE ? slots[slot + 1] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE)
+            return hasZeroKey;
+
+        return slots[find(key)] != FREE;
+    }
+
+    // O(1). With linear probing, we can't simply empty the slot: a key
+    // that collided with this one may sit further along, and the empty
+    // slot would stop lookups before they reach it. So we move such keys
+    // back into the gap.
+    public void remove(int key) {
+        if (key == FREE) {
+            if (hasZeroKey)
+                count--;
+            hasZeroKey = false;
+            return;
+        }
+
+        var gap = find(key);
+        if (slots[gap] == FREE)
+            return;
+
+        var slot = gap;
+        while (true) {
+            slot = (slot + 2) & mask;
+            var current = slots[slot];
+            if (current == FREE)
+                break;
+
+            // current can fill the gap only if its home slot isn't
+            // between the gap and where it is now.
+            var home = homeOf(current);
+            var stays = gap <= slot
+                    ? gap < home && home <= slot
+                    : gap < home || home <= slot;
+            if (stays)
+                continue;
+
+            slots[gap] = current;
+            slots[gap + 1] = slots[slot + 1];
+            gap = slot;
+        }
+
+        slots[gap] = FREE;
+        count--;
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        if (hasZeroKey)
+            visitor.visit(0, zeroValue);
+
+        for (var slot = 0; slot < slots.length; slot += 2)
+            if (slots[slot] != FREE)
+                visitor.visit(slots[slot], slots[slot + 1]);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, FREE);
+        hasZeroKey = false;
+        count = 0;
+    }
+
+    // Returns the slot (an even index into slots) that holds key, or the
+    // empty slot where it belongs.
+    private int find(int key) {
+        var slot = homeOf(key);
+        while (slots[slot] != FREE && slots[slot] != key)
+            slot = (slot + 2) & mask;
+        return slot;
+    }
+
+    // Multiplying by a large odd constant and folding the high bits down
+    // spreads consecutive keys (ids, indexes) over the whole table.
+    private int homeOf(int key) {
+        var hash = key * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) << 1) & mask;
+    }
+
+    private int capacity() {
+        return slots.length / 2;
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity * 2];
+        mask = slots.length - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        if (capacity > MAX_CAPACITY)
+            throw new IllegalStateException("Map is full.");
+
+        var oldSlots = slots;
+        allocate(capacity);
+
+        for (var i = 0; i < oldSlots.length; i += 2) {
+            if (oldSlots[i] == FREE)
+                continue;
+            var slot = find(oldSlots[i]);
+            slots[slot] = oldSlots[i];
+            slots[slot + 1] = oldSlots[i + 1];
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        var capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize && capacity < MAX_CAPACITY)
+            capacity *= 2;
+        return capacity;
+    }
+}
@@ -0,0 +1,71 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// Same as Stack, but for long values. We don't use Stack<Long> because
+// every push would box the value into a Long object.
+public class LongStack {
+  private static final int DEFAULT_CAPACITY = 5;
+
+  private long[] items;
+  private int count;
+  private final int minCapacity;
+
+  public LongStack() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongStack(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be 1 or greater.");
+
+    items = new long[capacity];
+    minCapacity = capacity;
+  }
+
+  // O(1) amortized
+  public void push(long item) {
+    if (count == items.length)
+      resize(items.length * 2);
+
+    items[count++] = item;
+  }
+
+  // O(1) amortized
+  public long pop() {
+    if (count == 0)
+      throw new IllegalStateException();
+
+    var item = items[--count];
+
+    if (count <= items.length / 4 && items.length / 2 >= minCapacity)
+      resize(items.length / 2);
+
+    return item;
+  }
+
+  private void resize(int capacity) {
+    items = Arrays.copyOf(items, capacity);
+  }
+
+  public long peek() {
+    if (count == 0)
+      throw new IllegalStateException();
+
+    return items[count - 1];
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    var content = Arrays.copyOfRange(items, 0, count);
+    return Arrays.toString(content);
+  }
+}
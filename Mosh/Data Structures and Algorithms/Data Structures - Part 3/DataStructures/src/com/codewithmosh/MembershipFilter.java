@@ -0,0 +1,49 @@
+package com.codewithmosh;
+
+// A small, probabilistic summary of a set of keys that answers "is this
+// key in the set?" with either "definitely not" or "maybe".
+//
+// If mightContain() returns false, the key was never added. If it
+// returns true, the key was added, or we hit a false positive. The
+// filter is much smaller than the set itself, so asking it first is
+// cheap, and when most lookups are misses it saves us most of the walks
+// through bucket chains, probe sequences or trie paths.
+//
+// Filters don't see keys, only their 64-bit hashes (see hash() below),
+// so the same filter works for int keys and for strings. The bits of
+// the hash must be well mixed: filters slice it into bucket indexes and
+// fingerprints.
+public interface MembershipFilter {
+  // Records the key. Returns false if the filter is full and couldn't
+  // record it; lookups for that key may then answer "definitely not".
+  boolean add(long hash);
+
+  boolean mightContain(long hash);
+
+  // The number of keys recorded.
+  int size();
+
+  long sizeInBytes();
+
+  // The estimated false positive rate with the keys recorded so far.
+  double falsePositiveRate();
+
+  // The finalizer of MurmurHash3: every bit of the key affects every bit
+  // of the result. Works for int keys too.
+  static long hash(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  // FNV-1a over the characters, then mixed like a long key.
+  static long hash(CharSequence key) {
+    var hash = 0xcbf29ce484222325L;
+    for (var i = 0; i < key.length(); i++)
+      hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+    return hash(hash);
+  }
+}
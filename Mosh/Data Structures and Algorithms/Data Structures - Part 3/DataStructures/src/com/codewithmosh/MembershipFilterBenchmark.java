@@ -0,0 +1,164 @@
+package com.codewithmosh;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+// Fills HashTable, HashMap and Trie with ITEMS keys, with no filter, a
+// BlockedBloomFilter and a CuckooFilter in front, then runs lookups of
+// which MISS_PERCENT percent are misses.
+//
+// For every filter we also print its size, the false positive rate it
+// estimates for itself, and the rate we measure on the misses.
+//
+// For the Trie, half of the missing words are random, and half are
+// words we added with one more letter, so that the walk goes all the
+// way down before it fails.
+//
+// This is a plain main() benchmark; take the numbers as a rough
+// comparison and ignore the first (warm-up) round.
+public class MembershipFilterBenchmark {
+  private static final int ITEMS = 200_000;
+  private static final int QUERIES = 1_000_000;
+  private static final int MISS_PERCENT = 90;
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private static final String[] NAMES = { "no filter    ", "blocked bloom", "cuckoo       " };
+
+  public static void main(String[] args) {
+    var random = new Random(42);
+
+    // Distinct random keys; the queries mix them with keys we never add.
+    var added = new IntHashSet(ITEMS);
+    var keys = new int[ITEMS];
+    for (var i = 0; i < ITEMS; ) {
+      var key = random.nextInt(Integer.MAX_VALUE);
+      if (added.add(key))
+        keys[i++] = key;
+    }
+    var keyQueries = new int[QUERIES];
+    var keyMisses = new boolean[QUERIES];
+    for (var i = 0; i < QUERIES; i++) {
+      if (random.nextInt(100) < MISS_PERCENT) {
+        int key;
+        do {
+          key = random.nextInt(Integer.MAX_VALUE);
+        } while (added.contains(key));
+        keyQueries[i] = key;
+        keyMisses[i] = true;
+      }
+      else
+        keyQueries[i] = keys[random.nextInt(ITEMS)];
+    }
+
+    var words = new String[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      words[i] = randomWord(random);
+    var wordQueries = new String[QUERIES];
+    for (var i = 0; i < QUERIES; i++) {
+      if (random.nextInt(100) >= MISS_PERCENT)
+        wordQueries[i] = words[random.nextInt(ITEMS)];
+      else if (random.nextBoolean())
+        wordQueries[i] = randomWord(random);
+      else
+        wordQueries[i] = words[random.nextInt(ITEMS)] + (char) ('a' + random.nextInt(26));
+    }
+
+    var hashTables = new HashTable[NAMES.length];
+    var hashMaps = new HashMap[NAMES.length];
+    var tries = new Trie[NAMES.length];
+    for (var f = 0; f < NAMES.length; f++) {
+      hashTables[f] = new HashTable(ITEMS / 2, newFilter(f));
+      hashMaps[f] = new HashMap(ITEMS * 2, newFilter(f));
+      tries[f] = new Trie(newFilter(f));
+      for (var i = 0; i < ITEMS; i++) {
+        hashTables[f].put(keys[i], "");
+        hashMaps[f].put(keys[i], "");
+        tries[f].insert(words[i]);
+      }
+    }
+
+    System.out.println("Filters with " + ITEMS + " keys");
+    for (var f = 1; f < NAMES.length; f++) {
+      System.out.println("  " + hashTables[f].getFilter());
+      System.out.printf("    measured fpr on int misses: %.4f%%, on word misses: %.4f%%%n",
+              measuredRate(hashTables[f].getFilter(), keyQueries, keyMisses),
+              measuredRate(tries[f].getFilter(), wordQueries, tries[0]::contains));
+    }
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+      for (var f = 0; f < NAMES.length; f++) {
+        var hashTable = hashTables[f];
+        run("HashTable.get  ", NAMES[f], keyQueries, key -> hashTable.get(key) != null);
+      }
+      for (var f = 0; f < NAMES.length; f++) {
+        var hashMap = hashMaps[f];
+        run("HashMap.get    ", NAMES[f], keyQueries, key -> hashMap.get(key) != null);
+      }
+      for (var f = 0; f < NAMES.length; f++) {
+        var trie = tries[f];
+        run("Trie.contains  ", NAMES[f], i -> trie.contains(wordQueries[i]));
+      }
+    }
+  }
+
+  private static MembershipFilter newFilter(int index) {
+    if (index == 1)
+      return new BlockedBloomFilter(ITEMS, FALSE_POSITIVE_RATE);
+    if (index == 2)
+      return new CuckooFilter(ITEMS, FALSE_POSITIVE_RATE);
+    return null;
+  }
+
+  private static String randomWord(Random random) {
+    var chars = new char[6 + random.nextInt(5)];
+    for (var i = 0; i < chars.length; i++)
+      chars[i] = (char) ('a' + random.nextInt(26));
+    return new String(chars);
+  }
+
+  private static double measuredRate(MembershipFilter filter, int[] queries, boolean[] misses) {
+    long falsePositives = 0;
+    long total = 0;
+    for (var i = 0; i < queries.length; i++) {
+      if (!misses[i])
+        continue;
+      total++;
+      if (filter.mightContain(MembershipFilter.hash(queries[i])))
+        falsePositives++;
+    }
+    return 100.0 * falsePositives / total;
+  }
+
+  private static double measuredRate(MembershipFilter filter, String[] queries,
+                                     Predicate<String> contains) {
+    long falsePositives = 0;
+    long total = 0;
+    for (var query : queries) {
+      if (contains.test(query))
+        continue;
+      total++;
+      if (filter.mightContain(MembershipFilter.hash(query)))
+        falsePositives++;
+    }
+    return 100.0 * falsePositives / total;
+  }
+
+  private static void run(String operation, String filter, int[] queries, IntPredicate lookup) {
+    run(operation, filter, i -> lookup.test(queries[i]));
+  }
+
+  // lookup takes the index of the query.
+  private static void run(String operation, String filter, IntPredicate lookup) {
+    var found = 0;
+    var start = System.nanoTime();
+    for (var i = 0; i < QUERIES; i++)
+      if (lookup.test(i))
+        found++;
+    var nanos = System.nanoTime() - start;
+
+    System.out.printf("  %s %s: %7.1f ns/lookup (%d of %d found)%n",
+            operation, filter, (double) nanos / QUERIES, found, QUERIES);
+  }
+}
@@ -0,0 +1,73 @@
+package com.codewithmosh;
+
+// The minimum and maximum of the last N values pushed (a sliding
+// window), in O(1).
+//
+// MinStack keeps its minimums on a second stack, which works because a
+// stack only removes its newest item. A window removes its oldest item
+// instead, so we keep the candidates in a monotonic deque (see
+// MonotonicDeque): one for the minimum and one for the maximum. Items
+// are numbered in the order they're pushed, so the deques know which
+// entries have left the window.
+public class MinMaxWindow {
+  private final int capacity;
+  private final MonotonicDeque mins = new MonotonicDeque(false);
+  private final MonotonicDeque maxes = new MonotonicDeque(true);
+  private long first;   // the number of the oldest item in the window
+  private long next;    // the number the next item will get
+
+  public MinMaxWindow(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be 1 or greater.");
+
+    this.capacity = capacity;
+  }
+
+  // O(1) amortized. When the window is full, the oldest item leaves.
+  public void push(int item) {
+    if (size() == capacity)
+      evict();
+
+    mins.add(next, item);
+    maxes.add(next, item);
+    next++;
+  }
+
+  // O(1). Removes the oldest item.
+  public void evict() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    mins.removeUpTo(first);
+    maxes.removeUpTo(first);
+    first++;
+  }
+
+  // O(1)
+  public int min() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return mins.first();
+  }
+
+  // O(1)
+  public int max() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return maxes.first();
+  }
+
+  public int size() {
+    return (int) (next - first);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public boolean isEmpty() {
+    return next == first;
+  }
+}
@@ -10,9 +10,11 @@ public class MinStack {
   public void push(int item) {
     stack.push(item);
 
+    // Equal items are pushed too: if the minimum appears twice, popping
+    // one of them must leave the other as the minimum.
     if (minStack.isEmpty())
       minStack.push(item);
-    else if (item < minStack.peek())
+    else if (item <= minStack.peek())
       minStack.push(item);
   }
 
@@ -31,4 +33,12 @@ public class MinStack {
   public int min() {
     return minStack.peek();
   }
+
+  public boolean isEmpty() {
+    return stack.isEmpty();
+  }
+
+  public int size() {
+    return stack.size();
+  }
 }
@@ -0,0 +1,91 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// The deque behind MinMaxWindow and TimedMinMaxWindow: (key, value)
+// pairs in order of their keys (sequence numbers or timestamps), where
+// the values only go up from front to back (for a minimum) or only go
+// down (for a maximum).
+//
+// When a value is added, every value at the back that it beats is
+// removed first: it's older, so it can never be the minimum (or
+// maximum) again while the new value is in the window. So the front is
+// always the answer, and every pair is added and removed once, which
+// makes add() O(1) amortized.
+//
+// The pairs live in two primitive arrays used as a ring buffer, which
+// doubles when it's full.
+class MonotonicDeque {
+  private final boolean keepsMax;
+  private long[] keys = new long[16];
+  private int[] values = new int[16];
+  private int head;
+  private int count;
+
+  public MonotonicDeque(boolean keepsMax) {
+    this.keepsMax = keepsMax;
+  }
+
+  // O(1) amortized
+  public void add(long key, int value) {
+    while (count > 0 && beats(value, values[(head + count - 1) & mask()]))
+      count--;
+
+    if (count == keys.length)
+      grow();
+
+    var index = (head + count) & mask();
+    keys[index] = key;
+    values[index] = value;
+    count++;
+  }
+
+  // Removes the pairs with a key of at most key from the front.
+  public void removeUpTo(long key) {
+    while (count > 0 && keys[head] <= key) {
+      head = (head + 1) & mask();
+      count--;
+    }
+  }
+
+  public int first() {
+    if (count == 0)
+      throw new IllegalStateException();
+
+    return values[head];
+  }
+
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  // Ties count as a win for the new value: it leaves the window later.
+  private boolean beats(int value, int other) {
+    return keepsMax ? value >= other : value <= other;
+  }
+
+  private int mask() {
+    return keys.length - 1;
+  }
+
+  private void grow() {
+    var newKeys = new long[keys.length * 2];
+    var newValues = new int[keys.length * 2];
+    for (var i = 0; i < count; i++) {
+      newKeys[i] = keys[(head + i) & mask()];
+      newValues[i] = values[(head + i) & mask()];
+    }
+
+    keys = newKeys;
+    values = newValues;
+    head = 0;
+  }
+
+  @Override
+  public String toString() {
+    var content = new int[count];
+    for (var i = 0; i < count; i++)
+      content[i] = values[(head + i) & mask()];
+    return Arrays.toString(content);
+  }
+}
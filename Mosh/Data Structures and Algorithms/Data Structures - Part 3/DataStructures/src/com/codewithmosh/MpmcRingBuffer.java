@@ -0,0 +1,147 @@
+package com.codewithmosh;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Multi-producer, multi-consumer ring buffer (Dmitry Vyukov's design).
+//
+// Any number of threads may offer and dequeue at the same time.
+// Next to every slot we keep a sequence number that says what state
+// the slot is in for a given position (pos) in the queue:
+//
+//   sequence == pos            the slot is free; a producer may fill it
+//   sequence == pos + 1        the slot is full; a consumer may take it
+//   sequence == pos + capacity the slot has been consumed and is free
+//                              again for the next lap around the array
+//
+// A producer claims a position by moving tail forward with a CAS,
+// writes the item and then publishes it by bumping the slot's
+// sequence. A consumer does the same with head. Threads only compete
+// on the CAS; the item itself is written and read without contention.
+public class MpmcRingBuffer extends RingBuffer {
+  private final long[] sequences;
+  private final PaddedSequence head = new PaddedSequence(0);
+  private final PaddedSequence tail = new PaddedSequence(0);
+
+  private static final VarHandle SEQUENCE =
+          MethodHandles.arrayElementVarHandle(long[].class);
+
+  public MpmcRingBuffer(int capacity) {
+    super(capacity);
+
+    sequences = new long[items.length];
+    for (var i = 0; i < sequences.length; i++)
+      sequences[i] = i;
+  }
+
+  // O(1) amortized; retries only when another producer wins the CAS.
+  @Override
+  public boolean offer(int item) {
+    while (true) {
+      var pos = tail.getAcquire();
+      var index = (int) pos & mask;
+      var sequence = sequenceAt(index);
+
+      if (sequence == pos) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          items[index] = item;
+          SEQUENCE.setRelease(sequences, index, pos + 1);
+          return true;
+        }
+      }
+      else if (sequence < pos)
+        return false; // The slot from the previous lap hasn't been consumed.
+    }
+  }
+
+  // Claims as many consecutive free slots as possible (up to n)
+  // with a single CAS on tail, then fills them.
+  @Override
+  public int offer(int[] src, int offset, int n) {
+    while (true) {
+      var pos = tail.getAcquire();
+
+      var count = 0;
+      while (count < n && sequenceAt((int) (pos + count) & mask) == pos + count)
+        count++;
+
+      if (count == 0) {
+        if (sequenceAt((int) pos & mask) < pos)
+          return 0;
+        continue;
+      }
+
+      if (tail.compareAndSet(pos, pos + count)) {
+        for (var i = 0; i < count; i++) {
+          var index = (int) (pos + i) & mask;
+          items[index] = src[offset + i];
+          SEQUENCE.setRelease(sequences, index, pos + i + 1);
+        }
+        return count;
+      }
+    }
+  }
+
+  // O(1) amortized; retries only when another consumer wins the CAS.
+  @Override
+  public int dequeue() {
+    while (true) {
+      var pos = head.getAcquire();
+      var index = (int) pos & mask;
+      var sequence = sequenceAt(index);
+
+      if (sequence == pos + 1) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          var item = items[index];
+          SEQUENCE.setRelease(sequences, index, pos + items.length);
+          return item;
+        }
+      }
+      else if (sequence < pos + 1)
+        throw new IllegalStateException();
+    }
+  }
+
+  // Claims as many consecutive full slots as possible (up to max)
+  // with a single CAS on head, then empties them.
+  @Override
+  public int drainTo(int[] dst, int max) {
+    var limit = Math.min(max, dst.length);
+    while (true) {
+      var pos = head.getAcquire();
+
+      var count = 0;
+      while (count < limit &&
+              sequenceAt((int) (pos + count) & mask) == pos + count + 1)
+        count++;
+
+      if (count == 0) {
+        if (limit == 0 || sequenceAt((int) pos & mask) < pos + 1)
+          return 0;
+        continue;
+      }
+
+      if (head.compareAndSet(pos, pos + count)) {
+        for (var i = 0; i < count; i++) {
+          var index = (int) (pos + i) & mask;
+          dst[i] = items[index];
+          SEQUENCE.setRelease(sequences, index, pos + i + items.length);
+        }
+        return count;
+      }
+    }
+  }
+
+  @Override
+  public int size() {
+    // Same reasoning as in SpscRingBuffer: read head before tail
+    // and clamp, since both may move while we look.
+    var currentHead = head.getAcquire();
+    var currentTail = tail.getAcquire();
+    return (int) Math.max(0, Math.min(currentTail - currentHead, items.length));
+  }
+
+  private long sequenceAt(int index) {
+    return (long) SEQUENCE.getAcquire(sequences, index);
+  }
+}
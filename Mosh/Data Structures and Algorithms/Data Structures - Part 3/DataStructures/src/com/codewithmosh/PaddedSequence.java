@@ -0,0 +1,52 @@
+package com.codewithmosh;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// A long counter that sits alone on its cache line (64 bytes).
+//
+// The head and tail of a ring buffer are written by different
+// threads. If they share a cache line, every write by the producer
+// invalidates the consumer's copy of that line and vice versa
+// (false sharing), even though they never touch the same field.
+// The 7 longs before and after the value push any neighbouring
+// object out of the line.
+class PaddedSequence {
+  private long p1, p2, p3, p4, p5, p6, p7;
+  private volatile long value;
+  private long p9, p10, p11, p12, p13, p14, p15;
+
+  private static final VarHandle VALUE;
+
+  static {
+    try {
+      VALUE = MethodHandles.lookup()
+              .findVarHandle(PaddedSequence.class, "value", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  public PaddedSequence(long initialValue) {
+    VALUE.setRelease(this, initialValue);
+  }
+
+  // Plain read: only safe for the thread that owns (writes) this sequence.
+  public long getPlain() {
+    return (long) VALUE.get(this);
+  }
+
+  public long getAcquire() {
+    return (long) VALUE.getAcquire(this);
+  }
+
+  // Cheaper than a volatile write: publishes everything written before
+  // it without a full fence.
+  public void setRelease(long newValue) {
+    VALUE.setRelease(this, newValue);
+  }
+
+  public boolean compareAndSet(long expected, long newValue) {
+    return VALUE.compareAndSet(this, expected, newValue);
+  }
+}
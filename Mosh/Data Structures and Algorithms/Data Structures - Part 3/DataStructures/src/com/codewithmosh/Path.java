@@ -1,17 +1,63 @@
 package com.codewithmosh;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+// A path through a WeightedGraph. We store the ids of the nodes in an
+// int[] and only look up their labels when someone asks for them, so a
+// path costs one small array instead of a list of strings.
+//
+// A path never changes once it's built, so the graph can cache it and
+// hand the same object to everyone who asks for it.
 public class Path {
-  private List<String> nodes = new ArrayList<>();
+  private final int[] nodes;
+  private final int cost;
+  private final List<String> labels;  // the graph's labels, by node id
+  private List<String> resolved;
 
-  public void add(String node) {
-    nodes.add(node);
+  Path(int[] nodes, int cost, List<String> labels) {
+    this.nodes = nodes;
+    this.cost = cost;
+    this.labels = labels;
+  }
+
+  // The sum of the weights of the edges, or Integer.MAX_VALUE if the
+  // destination can't be reached.
+  public int getCost() {
+    return cost;
+  }
+
+  // The number of edges.
+  public int getHops() {
+    return nodes.length - 1;
+  }
+
+  public int size() {
+    return nodes.length;
+  }
+
+  // O(1)
+  public String getLabel(int index) {
+    if (index < 0 || index >= nodes.length)
+      throw new IllegalArgumentException();
+
+    return labels.get(nodes[index]);
+  }
+
+  // O(n) the first time, O(1) after that.
+  public List<String> getLabels() {
+    if (resolved == null) {
+      var list = new ArrayList<String>(nodes.length);
+      for (var node : nodes)
+        list.add(labels.get(node));
+      resolved = Collections.unmodifiableList(list);
+    }
+    return resolved;
   }
 
   @Override
   public String toString() {
-    return nodes.toString();
+    return getLabels().toString();
   }
 }
@@ -0,0 +1,187 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// An immutable queue of ints. enqueue() and dequeue() return a new queue
+// and leave the old one as it was, sharing most of its structure with
+// the new one. Any number of threads can read a version without locks
+// while a writer keeps creating new ones.
+//
+// QueueWithTwoStacks moves the whole back stack to the front stack when
+// the front runs out. That's O(1) amortized for one mutable queue, but
+// not for a persistent one: we could dequeue from the same old version
+// again and again and pay for the move every time. So, as in Okasaki's
+// real-time queue, we do the move lazily and a little at a time:
+//
+// - The front is a lazy stream: each cell is only computed when it's
+//   first needed, and then remembered, so every version that shares
+//   the cell shares the work too.
+// - When the back gets longer than the front, we start a rotation: a
+//   stream that is the front followed by the reversed back. Computing
+//   one cell of it takes O(1) time.
+// - A schedule points into the front at the first cell that hasn't
+//   been computed yet. Every operation computes one more cell, so by
+//   the time we dequeue a cell, it's ready.
+//
+// So every operation is O(1) in the worst case, not just amortized.
+public class PersistentQueue {
+  private static final PersistentQueue EMPTY =
+          new PersistentQueue(Stream.EMPTY, PersistentStack.empty(), Stream.EMPTY, 0);
+
+  private final Stream front;
+  private final PersistentStack back;
+  private final Stream schedule;
+  private final int size;
+
+  private PersistentQueue(Stream front, PersistentStack back, Stream schedule, int size) {
+    this.front = front;
+    this.back = back;
+    this.schedule = schedule;
+    this.size = size;
+  }
+
+  public static PersistentQueue empty() {
+    return EMPTY;
+  }
+
+  // O(1)
+  public PersistentQueue enqueue(int item) {
+    return next(front, back.push(item), schedule, size + 1);
+  }
+
+  // O(1). Returns the queue without its first item; use peek() to get
+  // the item itself.
+  public PersistentQueue dequeue() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return next(front.force().rest, back, schedule, size - 1);
+  }
+
+  // O(1)
+  public int peek() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return front.force().item;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // O(n). The items from first to last.
+  public int[] toArray() {
+    var items = new int[size];
+    var count = 0;
+    for (var cell = front.force(); cell != Cell.END; cell = cell.rest.force())
+      items[count++] = cell.item;
+
+    var backItems = back.toArray();
+    for (var i = backItems.length - 1; i >= 0; i--)
+      items[count++] = backItems[i];
+
+    return items;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+
+  // Computes one cell of the schedule. The schedule is as long as the
+  // front minus the back, so when it runs out, the back has just become
+  // one item longer than the front, and we start a new rotation.
+  private static PersistentQueue next(Stream front, PersistentStack back, Stream schedule, int size) {
+    var cell = schedule.force();
+    if (cell != Cell.END)
+      return new PersistentQueue(front, back, cell.rest, size);
+
+    var rotated = Stream.rotation(front, back, Stream.EMPTY);
+    return new PersistentQueue(rotated, PersistentStack.empty(), rotated, size);
+  }
+
+  // An item and the stream of the items after it.
+  private static class Cell {
+    static final Cell END = new Cell(0, null);
+
+    final int item;
+    final Stream rest;
+
+    Cell(int item, Stream rest) {
+      this.item = item;
+      this.rest = rest;
+    }
+  }
+
+  // A lazily computed cell. Until it's computed, it holds the rotation
+  // it stands for: front ++ reverse(back) ++ accumulated, where the back
+  // is one item longer than the front.
+  //
+  // Two threads may compute the same cell at the same time; they get the
+  // same result, so that's harmless. The cell is published through a
+  // volatile field before the rotation is cleared, so a thread that
+  // finds the rotation gone always finds the cell.
+  private static class Stream {
+    static final Stream EMPTY = new Stream(Cell.END);
+
+    private volatile Cell cell;
+    private volatile Rotation rotation;
+
+    private Stream(Cell cell) {
+      this.cell = cell;
+    }
+
+    private Stream(Rotation rotation) {
+      this.rotation = rotation;
+    }
+
+    static Stream rotation(Stream front, PersistentStack back, Stream accumulated) {
+      return new Stream(new Rotation(front, back, accumulated));
+    }
+
+    // O(1)
+    Cell force() {
+      var computed = cell;
+      if (computed != null)
+        return computed;
+
+      var pending = rotation;
+      if (pending == null)
+        return cell;
+
+      computed = pending.firstCell();
+      cell = computed;
+      rotation = null;
+      return computed;
+    }
+  }
+
+  private static class Rotation {
+    final Stream front;
+    final PersistentStack back;
+    final Stream accumulated;
+
+    Rotation(Stream front, PersistentStack back, Stream accumulated) {
+      this.front = front;
+      this.back = back;
+      this.accumulated = accumulated;
+    }
+
+    // The first item comes from the front, or from the back once the
+    // front is done. Moving the back's top onto the accumulated stream
+    // reverses the back one item per cell.
+    Cell firstCell() {
+      var first = front.force();
+      if (first == Cell.END)
+        return new Cell(back.peek(), accumulated);
+
+      var moved = new Stream(new Cell(back.peek(), accumulated));
+      return new Cell(first.item, Stream.rotation(first.rest, back.pop(), moved));
+    }
+  }
+}
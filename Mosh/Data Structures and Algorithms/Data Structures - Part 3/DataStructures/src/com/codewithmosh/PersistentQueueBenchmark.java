@@ -0,0 +1,124 @@
+package com.codewithmosh;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// One writer keeps a queue of SIZE items moving (enqueue one item,
+// dequeue one item) and publishes every new version through a volatile
+// field. Reader threads keep taking the latest version as a snapshot
+// and reading it. Nobody ever waits for anybody else.
+//
+// We compare two ways of making those snapshots:
+//
+// - persistent: the versions are PersistentQueues, so publishing a new
+//   version costs O(1) and shares everything with the old one.
+// - copying: the versions are int[] copies (copy-on-write), so
+//   publishing a new version copies the whole queue.
+//
+// Every configuration runs for DURATION_MS; we report the writer's
+// updates and the readers' snapshots per second.
+public class PersistentQueueBenchmark {
+  private static final int[] SIZES = { 1_000, 100_000 };
+  private static final int DURATION_MS = 500;
+
+  private static volatile PersistentQueue persistent;
+  private static volatile int[] copy;
+  private static volatile long consumed;  // keeps the reads from being optimized away
+
+  public static void main(String[] args) throws InterruptedException {
+    var maxReaders = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      for (var size : SIZES) {
+        for (var readers = 1; readers <= maxReaders; readers *= 2) {
+          System.out.println("  " + size + " items, " + readers + " reader(s)");
+          runPersistent(size, readers);
+          runCopying(size, readers);
+        }
+      }
+    }
+  }
+
+  private static void runPersistent(int size, int readers) throws InterruptedException {
+    var queue = PersistentQueue.empty();
+    for (var i = 0; i < size; i++)
+      queue = queue.enqueue(i);
+    persistent = queue;
+
+    run("persistent", readers,
+            () -> {
+              var current = persistent;
+              persistent = current.enqueue(current.size()).dequeue();
+            },
+            () -> {
+              var snapshot = persistent;
+              return snapshot.peek() + snapshot.size();
+            });
+  }
+
+  private static void runCopying(int size, int readers) throws InterruptedException {
+    var items = new int[size];
+    for (var i = 0; i < size; i++)
+      items[i] = i;
+    copy = items;
+
+    run("copying   ", readers,
+            () -> {
+              var current = copy;
+              var next = new int[current.length];
+              System.arraycopy(current, 1, next, 0, current.length - 1);
+              next[next.length - 1] = current.length;
+              copy = next;
+            },
+            () -> {
+              var snapshot = copy;
+              return snapshot[0] + snapshot.length;
+            });
+  }
+
+  private interface Reader {
+    int read();
+  }
+
+  private static void run(String name, int readerCount, Runnable write, Reader read)
+          throws InterruptedException {
+    var stop = new AtomicBoolean();
+    var writes = new LongAdder();
+    var reads = new LongAdder();
+
+    var threads = new Thread[readerCount + 1];
+    threads[0] = new Thread(() -> {
+      while (!stop.get()) {
+        write.run();
+        writes.increment();
+      }
+    });
+    for (var i = 1; i <= readerCount; i++) {
+      threads[i] = new Thread(() -> {
+        long count = 0;
+        long total = 0;
+        while (!stop.get()) {
+          total += read.read();
+          count++;
+        }
+        reads.add(count);
+        consumed = total;
+      });
+    }
+
+    for (var thread : threads)
+      thread.start();
+    Thread.sleep(DURATION_MS);
+    stop.set(true);
+    for (var thread : threads)
+      thread.join();
+
+    var seconds = DURATION_MS / 1000.0;
+    System.out.printf("    %s: %8.2f M updates/s, %8.2f M snapshots/s%n",
+            name,
+            writes.sum() / seconds / 1_000_000,
+            reads.sum() / seconds / 1_000_000);
+  }
+}
@@ -0,0 +1,76 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+
+// An immutable stack of ints. push() and pop() don't change the stack;
+// they return a new one, and the old one stays as it was.
+//
+// The stack is a singly linked list (a "cons list"): pushing creates one
+// node that points to the old stack, and popping returns the node the
+// top points to. So every version shares all its nodes with the version
+// it came from, and both operations are O(1).
+//
+// Because a version never changes, any number of threads can read it
+// without locks, while a writer keeps creating new versions.
+public class PersistentStack {
+  private static final PersistentStack EMPTY = new PersistentStack(0, null, 0);
+
+  private final int top;
+  private final PersistentStack rest;
+  private final int size;
+
+  private PersistentStack(int top, PersistentStack rest, int size) {
+    this.top = top;
+    this.rest = rest;
+    this.size = size;
+  }
+
+  public static PersistentStack empty() {
+    return EMPTY;
+  }
+
+  // O(1)
+  public PersistentStack push(int item) {
+    return new PersistentStack(item, this, size + 1);
+  }
+
+  // O(1). Returns the stack without its top item.
+  public PersistentStack pop() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return rest;
+  }
+
+  // O(1)
+  public int peek() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return top;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // O(n). The items from the top down.
+  public int[] toArray() {
+    var items = new int[size];
+    var current = this;
+    for (var i = 0; i < size; i++) {
+      items[i] = current.top;
+      current = current.rest;
+    }
+    return items;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(toArray());
+  }
+}
@@ -0,0 +1,353 @@
+package com.codewithmosh;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// A set of ints kept in an AVL tree (see AVLTree) that any number of
+// threads can read while others write, without locks.
+//
+// Nodes are never changed once other threads can see them. To insert or
+// delete a value, we copy the nodes on the path from the root down to
+// it (O(log n) nodes, including the ones we rotate), and every other
+// node is shared with the old tree. Then we publish the new root with a
+// compareAndSet(). A reader that grabbed the old root keeps a complete,
+// consistent snapshot of the tree as it was, for as long as it likes.
+//
+// If two writers race, the one that loses the compareAndSet() simply
+// does its work again on the new root.
+//
+// To make several changes at once, use update(): the changes become
+// visible to readers together, with a single root swap. Inside a batch,
+// nodes that the batch itself created aren't visible to anyone else
+// yet, so we change them in place instead of copying them again.
+public class PersistentTree {
+  private static class Node {
+    private final int value;
+    private final Object owner;  // the batch that may still change it
+    private Node leftChild;
+    private Node rightChild;
+    private int height;
+    private int size;
+
+    private Node(int value, Node leftChild, Node rightChild, Object owner) {
+      this.value = value;
+      this.owner = owner;
+      this.leftChild = leftChild;
+      this.rightChild = rightChild;
+      update();
+    }
+
+    private void update() {
+      height = Math.max(height(leftChild), height(rightChild)) + 1;
+      size = size(leftChild) + size(rightChild) + 1;
+    }
+
+    @Override
+    public String toString() {
+      return "Value=" + value;
+    }
+  }
+
+  private final AtomicReference<Node> root = new AtomicReference<>();
+
+  // O(log n). Returns false if the value was already there.
+  public boolean insert(int value) {
+    while (true) {
+      var current = root.get();
+      if (contains(current, value))
+        return false;
+      if (root.compareAndSet(current, insert(current, value, null)))
+        return true;
+    }
+  }
+
+  // O(log n). Returns false if the value wasn't there.
+  public boolean delete(int value) {
+    while (true) {
+      var current = root.get();
+      if (!contains(current, value))
+        return false;
+      if (root.compareAndSet(current, delete(current, value, null)))
+        return true;
+    }
+  }
+
+  // Makes all the changes in the batch visible at once. If another
+  // writer publishes a new tree first, the batch is run again on that
+  // tree, so it shouldn't have side effects other than its changes.
+  public void update(Consumer<Batch> changes) {
+    while (true) {
+      var current = root.get();
+      var batch = new Batch(current);
+      changes.accept(batch);
+      batch.owner = null;  // its nodes can't change after this
+
+      if (batch.root == current || root.compareAndSet(current, batch.root))
+        return;
+    }
+  }
+
+  // O(1). The tree as it is right now; later changes don't affect it.
+  public Snapshot snapshot() {
+    return new Snapshot(root.get());
+  }
+
+  // O(log n)
+  public boolean contains(int value) {
+    return contains(root.get(), value);
+  }
+
+  public int size() {
+    return size(root.get());
+  }
+
+  public boolean isEmpty() {
+    return root.get() == null;
+  }
+
+  public class Batch {
+    private Object owner = new Object();
+    private Node root;
+
+    private Batch(Node root) {
+      this.root = root;
+    }
+
+    // O(log n). Returns false if the value was already there.
+    public boolean insert(int value) {
+      if (contains(value))
+        return false;
+
+      root = PersistentTree.insert(root, value, owner);
+      return true;
+    }
+
+    // O(log n). Returns false if the value wasn't there.
+    public boolean delete(int value) {
+      if (!contains(value))
+        return false;
+
+      root = PersistentTree.delete(root, value, owner);
+      return true;
+    }
+
+    // O(log n). Sees the changes made so far in this batch.
+    public boolean contains(int value) {
+      return PersistentTree.contains(root, value);
+    }
+
+    public int size() {
+      return PersistentTree.size(root);
+    }
+  }
+
+  // A read-only, consistent view of the tree at one point in time.
+  public static class Snapshot implements Iterable<Integer> {
+    private final Node root;
+
+    private Snapshot(Node root) {
+      this.root = root;
+    }
+
+    // O(log n)
+    public boolean contains(int value) {
+      return PersistentTree.contains(root, value);
+    }
+
+    // O(1)
+    public int size() {
+      return PersistentTree.size(root);
+    }
+
+    public boolean isEmpty() {
+      return root == null;
+    }
+
+    // O(1)
+    public int height() {
+      return PersistentTree.height(root);
+    }
+
+    // O(log n)
+    public int min() {
+      if (root == null)
+        throw new IllegalStateException();
+
+      var current = root;
+      while (current.leftChild != null)
+        current = current.leftChild;
+      return current.value;
+    }
+
+    // O(log n)
+    public int max() {
+      if (root == null)
+        throw new IllegalStateException();
+
+      var current = root;
+      while (current.rightChild != null)
+        current = current.rightChild;
+      return current.value;
+    }
+
+    // O(n), in order.
+    public void forEachInt(IntConsumer action) {
+      for (var iterator = iterator(); iterator.hasNext(); )
+        action.accept(iterator.nextInt());
+    }
+
+    public int[] toArray() {
+      var items = new int[size()];
+      var count = 0;
+      for (var iterator = iterator(); iterator.hasNext(); )
+        items[count++] = iterator.nextInt();
+      return items;
+    }
+
+    // In-order traversal with an explicit stack. The tree is balanced,
+    // so the stack never holds more than the height + 1 nodes.
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+      return new PrimitiveIterator.OfInt() {
+        private final Node[] stack = new Node[height() + 1];
+        private int count;
+
+        {
+          pushLeft(root);
+        }
+
+        private void pushLeft(Node node) {
+          for (; node != null; node = node.leftChild)
+            stack[count++] = node;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return count > 0;
+        }
+
+        @Override
+        public int nextInt() {
+          if (count == 0)
+            throw new NoSuchElementException();
+
+          var node = stack[--count];
+          pushLeft(node.rightChild);
+          return node.value;
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(toArray());
+    }
+  }
+
+  private static boolean contains(Node root, int value) {
+    var current = root;
+    while (current != null) {
+      if (value < current.value)
+        current = current.leftChild;
+      else if (value > current.value)
+        current = current.rightChild;
+      else
+        return true;
+    }
+    return false;
+  }
+
+  // These return the new root of the sub-tree. The callers check that
+  // the value isn't there (insert) or is there (delete) first, so every
+  // node on the path really changes.
+  private static Node insert(Node root, int value, Object owner) {
+    if (root == null)
+      return new Node(value, null, null, owner);
+
+    if (value < root.value)
+      root = withChildren(root, insert(root.leftChild, value, owner), root.rightChild, owner);
+    else
+      root = withChildren(root, root.leftChild, insert(root.rightChild, value, owner), owner);
+
+    return balance(root, owner);
+  }
+
+  private static Node delete(Node root, int value, Object owner) {
+    if (value < root.value) {
+      root = withChildren(root, delete(root.leftChild, value, owner), root.rightChild, owner);
+      return balance(root, owner);
+    }
+    if (value > root.value) {
+      root = withChildren(root, root.leftChild, delete(root.rightChild, value, owner), owner);
+      return balance(root, owner);
+    }
+
+    if (root.leftChild == null)
+      return root.rightChild;
+    if (root.rightChild == null)
+      return root.leftChild;
+
+    // Two children: the smallest value on the right takes this node's
+    // place. The value is final, so that's always a new node.
+    var successor = root.rightChild;
+    while (successor.leftChild != null)
+      successor = successor.leftChild;
+
+    var right = delete(root.rightChild, successor.value, owner);
+    return balance(new Node(successor.value, root.leftChild, right, owner), owner);
+  }
+
+  // Changes the node in place if it belongs to the current batch;
+  // otherwise copies it.
+  private static Node withChildren(Node node, Node leftChild, Node rightChild, Object owner) {
+    if (owner != null && node.owner == owner) {
+      node.leftChild = leftChild;
+      node.rightChild = rightChild;
+      node.update();
+      return node;
+    }
+    return new Node(node.value, leftChild, rightChild, owner);
+  }
+
+  private static Node balance(Node root, Object owner) {
+    var balanceFactor = balanceFactor(root);
+    if (balanceFactor > 1) {
+      if (balanceFactor(root.leftChild) < 0)
+        root = withChildren(root, rotateLeft(root.leftChild, owner), root.rightChild, owner);
+      return rotateRight(root, owner);
+    } else if (balanceFactor < -1) {
+      if (balanceFactor(root.rightChild) > 0)
+        root = withChildren(root, root.leftChild, rotateRight(root.rightChild, owner), owner);
+      return rotateLeft(root, owner);
+    }
+    return root;
+  }
+
+  private static Node rotateLeft(Node root, Object owner) {
+    var newRoot = root.rightChild;
+    var oldRoot = withChildren(root, root.leftChild, newRoot.leftChild, owner);
+    return withChildren(newRoot, oldRoot, newRoot.rightChild, owner);
+  }
+
+  private static Node rotateRight(Node root, Object owner) {
+    var newRoot = root.leftChild;
+    var oldRoot = withChildren(root, newRoot.rightChild, root.rightChild, owner);
+    return withChildren(newRoot, newRoot.leftChild, oldRoot, owner);
+  }
+
+  private static int balanceFactor(Node node) {
+    return (node == null) ? 0 : height(node.leftChild) - height(node.rightChild);
+  }
+
+  private static int height(Node node) {
+    return (node == null) ? -1 : node.height;
+  }
+
+  private static int size(Node node) {
+    return (node == null) ? 0 : node.size;
+  }
+}
@@ -0,0 +1,146 @@
+package com.codewithmosh;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+// One writer keeps inserting and deleting random keys in a set of about
+// SIZE values while N readers look up random keys. We compare:
+//
+// - PersistentTree, one change per root swap
+// - PersistentTree, BATCH changes per root swap (update())
+// - java.util.TreeSet behind a ReentrantReadWriteLock
+//
+// With the persistent tree, readers never wait for the writer (or for
+// each other), so lookups should scale with the number of readers. With
+// the lock, every writer turn stops all the readers.
+//
+// Every configuration runs for DURATION_MS. This is a plain main()
+// benchmark; take the numbers as a rough comparison and ignore the
+// first (warm-up) round.
+public class PersistentTreeBenchmark {
+  private static final int SIZE = 100_000;
+  private static final int BATCH = 16;
+  private static final int DURATION_MS = 500;
+
+  private interface Writer {
+    // Makes some changes and returns how many it made.
+    int write(Random random);
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    var maxReaders = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      for (var readers = 1; readers <= maxReaders; readers *= 2) {
+        System.out.println("  " + readers + " reader(s)");
+
+        var single = filledTree();
+        run("persistent", readers,
+                random -> {
+                  var key = random.nextInt(2 * SIZE);
+                  if (!single.insert(key))
+                    single.delete(key);
+                  return 1;
+                },
+                single::contains);
+
+        var batched = filledTree();
+        run("persistent, batched", readers,
+                random -> {
+                  var keys = new int[BATCH];
+                  for (var i = 0; i < BATCH; i++)
+                    keys[i] = random.nextInt(2 * SIZE);
+                  batched.update(batch -> {
+                    for (var key : keys)
+                      if (!batch.insert(key))
+                        batch.delete(key);
+                  });
+                  return BATCH;
+                },
+                batched::contains);
+
+        var set = new TreeSet<Integer>();
+        for (var i = 0; i < SIZE; i++)
+          set.add(2 * i);
+        var lock = new ReentrantReadWriteLock();
+        run("TreeSet + read/write lock", readers,
+                random -> {
+                  var key = random.nextInt(2 * SIZE);
+                  lock.writeLock().lock();
+                  try {
+                    if (!set.add(key))
+                      set.remove(key);
+                  } finally {
+                    lock.writeLock().unlock();
+                  }
+                  return 1;
+                },
+                key -> {
+                  lock.readLock().lock();
+                  try {
+                    return set.contains(key);
+                  } finally {
+                    lock.readLock().unlock();
+                  }
+                });
+      }
+    }
+  }
+
+  // Every other key, so about half the lookups hit.
+  private static PersistentTree filledTree() {
+    var tree = new PersistentTree();
+    tree.update(batch -> {
+      for (var i = 0; i < SIZE; i++)
+        batch.insert(2 * i);
+    });
+    return tree;
+  }
+
+  private static void run(String name, int readerCount, Writer writer, IntPredicate contains)
+          throws InterruptedException {
+    var stop = new AtomicBoolean();
+    var writes = new LongAdder();
+    var reads = new LongAdder();
+
+    var threads = new Thread[readerCount + 1];
+    threads[0] = new Thread(() -> {
+      var random = new Random(42);
+      long count = 0;
+      while (!stop.get())
+        count += writer.write(random);
+      writes.add(count);
+    });
+    for (var i = 1; i <= readerCount; i++) {
+      threads[i] = new Thread(() -> {
+        var random = ThreadLocalRandom.current();
+        long count = 0;
+        while (!stop.get()) {
+          contains.test(random.nextInt(2 * SIZE));
+          count++;
+        }
+        reads.add(count);
+      });
+    }
+
+    for (var thread : threads)
+      thread.start();
+    Thread.sleep(DURATION_MS);
+    stop.set(true);
+    for (var thread : threads)
+      thread.join();
+
+    var seconds = DURATION_MS / 1000.0;
+    System.out.printf("    %-25s: %6.2f M writes/s, %6.2f M lookups/s%n",
+            name,
+            writes.sum() / seconds / 1_000_000,
+            reads.sum() / seconds / 1_000_000);
+  }
+}
@@ -0,0 +1,78 @@
+package com.codewithmosh;
+
+// A bounded queue of ints for handing items from one thread to another.
+//
+// This is ArrayQueue with a few changes:
+//
+// - The capacity is rounded up to a power of two, so wrapping an
+//   index is (index & mask) instead of (index % length). A modulo is
+//   a division; a mask is a single AND.
+//
+// - head and tail are ever-increasing long sequences instead of
+//   indexes that wrap. The number of items is simply (tail - head),
+//   so we don't need a shared count that both threads write.
+//
+// - Dequeued slots are not zeroed. The sequences tell us which slots
+//   hold live items, so clearing them is wasted work.
+//
+// - offer() returns false instead of throwing when the queue is full,
+//   and items can be moved in batches with offer(int[], int) and
+//   drainTo(int[]).
+public abstract class RingBuffer {
+  protected final int[] items;
+  protected final int mask;
+
+  protected RingBuffer(int capacity) {
+    if (capacity <= 0 || capacity > (1 << 30))
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30.");
+
+    items = new int[toPowerOfTwo(capacity)];
+    mask = items.length - 1;
+  }
+
+  // Rounds up to the next power of two (5 -> 8, 8 -> 8).
+  private static int toPowerOfTwo(int value) {
+    return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  public abstract boolean offer(int item);
+
+  // Adds up to n items from src, starting at src[offset], and returns
+  // how many were added.
+  public abstract int offer(int[] src, int offset, int n);
+
+  // Removes the head item. Throws if the queue is empty.
+  public abstract int dequeue();
+
+  // Removes up to max items into dst and returns how many were removed.
+  public abstract int drainTo(int[] dst, int max);
+
+  // May be out of date by the time the caller looks at it if other
+  // threads are using the queue.
+  public abstract int size();
+
+  public void enqueue(int item) {
+    if (!offer(item))
+      throw new IllegalStateException();
+  }
+
+  public int offer(int[] src, int n) {
+    return offer(src, 0, n);
+  }
+
+  public int drainTo(int[] dst) {
+    return drainTo(dst, dst.length);
+  }
+
+  public int capacity() {
+    return items.length;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public boolean isFull() {
+    return size() == items.length;
+  }
+}
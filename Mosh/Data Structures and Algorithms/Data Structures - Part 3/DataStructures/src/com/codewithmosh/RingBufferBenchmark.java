@@ -0,0 +1,157 @@
+package com.codewithmosh;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Compares SpscRingBuffer and MpmcRingBuffer with ArrayBlockingQueue.
+//
+// - Ping-pong: two threads bounce a single value back and forth through
+//   a pair of queues. This measures the latency of one hand-off.
+//
+// - Throughput: one producer pushes ITEMS values in batches while one
+//   consumer drains them. This measures how many items per second
+//   make it across.
+//
+// This is a plain main() benchmark, so take the numbers as a rough
+// comparison. Run it a few times and ignore the first (warm-up) round.
+public class RingBufferBenchmark {
+  private static final int CAPACITY = 1024;
+  private static final int ROUND_TRIPS = 1_000_000;
+  private static final int ITEMS = 10_000_000;
+  private static final int BATCH = 64;
+
+  public static void main(String[] args) throws Exception {
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      report("ping-pong spsc", ROUND_TRIPS, pingPong(
+              new SpscRingBuffer(CAPACITY), new SpscRingBuffer(CAPACITY)));
+      report("ping-pong mpmc", ROUND_TRIPS, pingPong(
+              new MpmcRingBuffer(CAPACITY), new MpmcRingBuffer(CAPACITY)));
+      report("ping-pong abq ", ROUND_TRIPS, pingPong(
+              new ArrayBlockingQueue<>(CAPACITY), new ArrayBlockingQueue<>(CAPACITY)));
+
+      report("throughput spsc", ITEMS, throughput(new SpscRingBuffer(CAPACITY)));
+      report("throughput mpmc", ITEMS, throughput(new MpmcRingBuffer(CAPACITY)));
+      report("throughput abq ", ITEMS, throughput(new ArrayBlockingQueue<>(CAPACITY)));
+    }
+  }
+
+  private static void report(String name, int operations, long nanos) {
+    System.out.printf("  %s: %8.1f ns/op %10.1f Mops/s%n",
+            name,
+            (double) nanos / operations,
+            operations / (nanos / 1_000.0));
+  }
+
+  private static long pingPong(RingBuffer ping, RingBuffer pong)
+          throws InterruptedException {
+    var echo = new Thread(() -> {
+      for (var i = 0; i < ROUND_TRIPS; i++) {
+        while (ping.isEmpty())
+          Thread.onSpinWait();
+        pong.enqueue(ping.dequeue());
+      }
+    });
+    echo.start();
+
+    var start = System.nanoTime();
+    for (var i = 0; i < ROUND_TRIPS; i++) {
+      ping.enqueue(i);
+      while (pong.isEmpty())
+        Thread.onSpinWait();
+      pong.dequeue();
+    }
+    var elapsed = System.nanoTime() - start;
+
+    echo.join();
+    return elapsed;
+  }
+
+  private static long pingPong(BlockingQueue<Integer> ping,
+                               BlockingQueue<Integer> pong)
+          throws InterruptedException {
+    var echo = new Thread(() -> {
+      try {
+        for (var i = 0; i < ROUND_TRIPS; i++)
+          pong.put(ping.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    echo.start();
+
+    var start = System.nanoTime();
+    for (var i = 0; i < ROUND_TRIPS; i++) {
+      ping.put(i);
+      pong.take();
+    }
+    var elapsed = System.nanoTime() - start;
+
+    echo.join();
+    return elapsed;
+  }
+
+  private static long throughput(RingBuffer queue) throws InterruptedException {
+    var consumer = new Thread(() -> {
+      var batch = new int[BATCH];
+      long sum = 0;
+      var received = 0;
+      while (received < ITEMS) {
+        var count = queue.drainTo(batch);
+        if (count == 0)
+          Thread.onSpinWait();
+        for (var i = 0; i < count; i++)
+          sum += batch[i];
+        received += count;
+      }
+      if (sum != (long) ITEMS * (ITEMS - 1) / 2)
+        throw new IllegalStateException("Lost or duplicated items.");
+    });
+    consumer.start();
+
+    var start = System.nanoTime();
+    var batch = new int[BATCH];
+    var sent = 0;
+    while (sent < ITEMS) {
+      var n = Math.min(BATCH, ITEMS - sent);
+      for (var i = 0; i < n; i++)
+        batch[i] = sent + i;
+
+      var offered = 0;
+      while (offered < n) {
+        var count = queue.offer(batch, offered, n - offered);
+        if (count == 0)
+          Thread.onSpinWait();
+        offered += count;
+      }
+      sent += n;
+    }
+    consumer.join();
+
+    return System.nanoTime() - start;
+  }
+
+  private static long throughput(BlockingQueue<Integer> queue)
+          throws InterruptedException {
+    var consumer = new Thread(() -> {
+      try {
+        long sum = 0;
+        for (var i = 0; i < ITEMS; i++)
+          sum += queue.take();
+        if (sum != (long) ITEMS * (ITEMS - 1) / 2)
+          throw new IllegalStateException("Lost or duplicated items.");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    consumer.start();
+
+    var start = System.nanoTime();
+    for (var i = 0; i < ITEMS; i++)
+      queue.put(i);
+    consumer.join();
+
+    return System.nanoTime() - start;
+  }
+}
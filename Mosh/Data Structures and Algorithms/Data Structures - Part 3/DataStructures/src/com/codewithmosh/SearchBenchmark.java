@@ -0,0 +1,77 @@
+package com.codewithmosh;
+
+import java.util.Random;
+
+// Compares EytzingerIndex (single and batched lookups) with the searches
+// in Search on a sorted array that is much larger than the CPU caches.
+//
+// Half of the queries are items in the array and half are misses.
+// Jump search takes O(sqrt(n)) steps per lookup, so it gets far fewer
+// queries; the results are reported per lookup either way.
+public class SearchBenchmark {
+  private static final int ITEMS = 16 * 1024 * 1024;
+  private static final int QUERIES = 2_000_000;
+  private static final int JUMP_QUERIES = 20_000;
+
+  private interface Searcher {
+    int search(int[] array, int target);
+  }
+
+  public static void main(String[] args) {
+    var random = new Random(42);
+
+    // Even numbers only, so odd queries are guaranteed misses.
+    var array = new int[ITEMS];
+    for (var i = 0; i < ITEMS; i++)
+      array[i] = 2 * i;
+
+    var queries = new int[QUERIES];
+    for (var i = 0; i < QUERIES; i++)
+      queries[i] = random.nextInt(2 * ITEMS);
+
+    var search = new Search();
+    var start = System.nanoTime();
+    var index = new EytzingerIndex(array);
+    System.out.printf("Eytzinger build: %.1f ms%n",
+            (System.nanoTime() - start) / 1_000_000.0);
+
+    var out = new int[QUERIES];
+
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      run("binary     ", array, queries, QUERIES, search::binarySearch);
+      run("ternary    ", array, queries, QUERIES, search::ternarySearch);
+      run("exponential", array, queries, QUERIES, search::exponentialSearch);
+      run("jump       ", array, queries, JUMP_QUERIES, search::jumpSearch);
+      run("eytzinger  ", array, queries, QUERIES, (a, target) -> index.search(target));
+
+      start = System.nanoTime();
+      index.searchBatch(queries, out);
+      var nanos = System.nanoTime() - start;
+
+      var found = 0;
+      for (var result : out)
+        if (result >= 0)
+          found++;
+      report("eytzinger batch", nanos, QUERIES, found);
+    }
+  }
+
+  private static void run(String name, int[] array, int[] queries,
+                          int count, Searcher searcher) {
+    var found = 0;
+    var start = System.nanoTime();
+    for (var i = 0; i < count; i++)
+      if (searcher.search(array, queries[i]) >= 0)
+        found++;
+    var nanos = System.nanoTime() - start;
+
+    report(name, nanos, count, found);
+  }
+
+  private static void report(String name, long nanos, int count, int found) {
+    System.out.printf("  %s: %7.1f ns/lookup (%d of %d found)%n",
+            name, (double) nanos / count, found, count);
+  }
+}
@@ -0,0 +1,127 @@
+package com.codewithmosh;
+
+// Single-producer, single-consumer ring buffer.
+//
+// Only one thread may call offer() and only one (other) thread may
+// call dequeue()/drainTo(). With that restriction we don't need any
+// locks or CAS: the producer is the only writer of tail and the
+// consumer is the only writer of head. Each side publishes its
+// progress with a release write, and the other side reads it with
+// an acquire read.
+//
+// Each side also keeps a cached copy of the other side's sequence.
+// The producer only re-reads head when its cached copy says the
+// queue is full; the consumer only re-reads tail when its cached
+// copy says the queue is empty. Most of the time neither thread
+// touches the other's cache line.
+public class SpscRingBuffer extends RingBuffer {
+  private final PaddedSequence head = new PaddedSequence(0);
+  private final PaddedSequence tail = new PaddedSequence(0);
+
+  // Owned by the producer.
+  private long cachedHead;
+
+  // Owned by the consumer.
+  private long cachedTail;
+
+  public SpscRingBuffer(int capacity) {
+    super(capacity);
+  }
+
+  // O(1)
+  @Override
+  public boolean offer(int item) {
+    var currentTail = tail.getPlain();
+    if (currentTail - cachedHead == items.length) {
+      cachedHead = head.getAcquire();
+      if (currentTail - cachedHead == items.length)
+        return false;
+    }
+
+    items[(int) currentTail & mask] = item;
+    tail.setRelease(currentTail + 1);
+
+    return true;
+  }
+
+  // O(n), but with at most two System.arraycopy calls and a
+  // single release write for the whole batch.
+  @Override
+  public int offer(int[] src, int offset, int n) {
+    var currentTail = tail.getPlain();
+    var free = items.length - (int) (currentTail - cachedHead);
+    if (free < n) {
+      cachedHead = head.getAcquire();
+      free = items.length - (int) (currentTail - cachedHead);
+    }
+
+    var count = Math.min(n, free);
+    if (count == 0)
+      return 0;
+
+    copyIn(src, offset, (int) currentTail & mask, count);
+    tail.setRelease(currentTail + count);
+
+    return count;
+  }
+
+  // O(1)
+  @Override
+  public int dequeue() {
+    var currentHead = head.getPlain();
+    if (currentHead == cachedTail) {
+      cachedTail = tail.getAcquire();
+      if (currentHead == cachedTail)
+        throw new IllegalStateException();
+    }
+
+    var item = items[(int) currentHead & mask];
+    head.setRelease(currentHead + 1);
+
+    return item;
+  }
+
+  @Override
+  public int drainTo(int[] dst, int max) {
+    var currentHead = head.getPlain();
+    var available = (int) (cachedTail - currentHead);
+    if (available < max) {
+      cachedTail = tail.getAcquire();
+      available = (int) (cachedTail - currentHead);
+    }
+
+    var count = Math.min(Math.min(max, dst.length), available);
+    if (count == 0)
+      return 0;
+
+    copyOut(dst, (int) currentHead & mask, count);
+    head.setRelease(currentHead + count);
+
+    return count;
+  }
+
+  @Override
+  public int size() {
+    // Read head first: if we read tail first, the consumer could move
+    // head past it before we read head and we'd report a negative size.
+    // The producer can still move on between the two reads, so we cap
+    // the result at the capacity.
+    var currentHead = head.getAcquire();
+    var currentTail = tail.getAcquire();
+    return (int) Math.min(currentTail - currentHead, items.length);
+  }
+
+  // A batch that runs past the end of the array wraps around
+  // to the beginning, so we copy it in (at most) two pieces.
+  private void copyIn(int[] src, int offset, int index, int count) {
+    var firstPart = Math.min(count, items.length - index);
+    System.arraycopy(src, offset, items, index, firstPart);
+    System.arraycopy(src, offset + firstPart, items, 0, count - firstPart);
+  }
+
+  private void copyOut(int[] dst, int index, int count) {
+    var firstPart = Math.min(count, items.length - index);
+    System.arraycopy(items, index, dst, 0, firstPart);
+    System.arraycopy(items, 0, dst, firstPart, count - firstPart);
+  }
+}
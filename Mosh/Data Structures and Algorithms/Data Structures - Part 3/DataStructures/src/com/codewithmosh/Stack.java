@@ -2,22 +2,52 @@ package com.codewithmosh;
 
 import java.util.Arrays;
 
+// The array doubles when it's full and halves when it's only a quarter
+// full. Shrinking at a quarter (not at half) means a push/pop sequence
+// right at the boundary can't make us resize on every call, so push()
+// and pop() stay O(1) amortized.
 public class Stack {
-  private int[] items = new int[5];
+  private static final int DEFAULT_CAPACITY = 5;
+
+  private int[] items;
   private int count;
+  private final int minCapacity;
+
+  public Stack() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public Stack(int capacity) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be 1 or greater.");
+
+    items = new int[capacity];
+    minCapacity = capacity;
+  }
 
+  // O(1) amortized
   public void push(int item) {
     if (count == items.length)
-      throw new StackOverflowError();
+      resize(items.length * 2);
 
     items[count++] = item;
   }
 
+  // O(1) amortized
   public int pop() {
     if (count == 0)
       throw new IllegalStateException();
 
-    return items[--count];
+    var item = items[--count];
+
+    if (count <= items.length / 4 && items.length / 2 >= minCapacity)
+      resize(items.length / 2);
+
+    return item;
+  }
+
+  private void resize(int capacity) {
+    items = Arrays.copyOf(items, capacity);
   }
 
   public int peek() {
@@ -31,6 +61,10 @@ public class Stack {
     return count == 0;
   }
 
+  public int size() {
+    return count;
+  }
+
   @Override
   public String toString() {
     var content = Arrays.copyOfRange(items, 0, count);
@@ -0,0 +1,327 @@
+package com.codewithmosh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// The StringUtils operations for files that are too big to load into a
+// String (multi-GB logs).
+//
+// The file is memory-mapped one chunk (64 MB) at a time, so we never
+// hold more than a chunk of it in memory. Output goes through a single
+// reusable 64 KB buffer.
+//
+// - countVowels and getMaxOccuringChar only count, so every chunk can
+//   be counted on its own thread and the results added up at the end.
+// - removeDuplicates, capitalize and reverseWords produce output whose
+//   order matters, so they go through the chunks one by one and carry
+//   what they know about the current word across chunk boundaries.
+//
+// Like getMaxOccuringChar (which uses a 256-entry table), these methods
+// treat the file as single-byte text (ASCII or ISO-8859-1). Case changes
+// only touch 'a'..'z' and 'A'..'Z'; in UTF-8 files, multi-byte
+// characters pass through unchanged.
+public class StreamingStringUtils {
+  private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  private static final boolean[] VOWELS = new boolean[256];
+
+  static {
+    for (var ch : "aeiouAEIOU".toCharArray())
+      VOWELS[ch] = true;
+  }
+
+  // O(n), in parallel.
+  public static long countVowels(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+
+      return chunks(size).mapToLong(chunk -> {
+        var buffer = map(channel, chunk);
+        long count = 0;
+        while (buffer.hasRemaining())
+          if (VOWELS[buffer.get() & 0xFF])
+            count++;
+        return count;
+      }).sum();
+    }
+  }
+
+  // O(n), in parallel: every chunk builds its own histogram and we add
+  // them up. Ties go to the smallest character, as in StringUtils.
+  public static char getMaxOccuringChar(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var size = channel.size();
+      if (size == 0)
+        throw new IllegalArgumentException();
+
+      var frequencies = chunks(size)
+              .mapToObj(chunk -> {
+                var buffer = map(channel, chunk);
+                var counts = new long[256];
+                while (buffer.hasRemaining())
+                  counts[buffer.get() & 0xFF]++;
+                return counts;
+              })
+              .reduce(new long[256], StreamingStringUtils::add);
+
+      var result = 0;
+      for (var i = 1; i < frequencies.length; i++)
+        if (frequencies[i] > frequencies[result])
+          result = i;
+
+      return (char) result;
+    }
+  }
+
+  // O(n). There are only 256 distinct bytes, so the output is tiny and
+  // we can stop reading as soon as we've seen all of them.
+  public static void removeDuplicates(Path input, Path output) throws IOException {
+    try (var in = FileChannel.open(input, StandardOpenOption.READ);
+         var out = new Output(output)) {
+
+      var seen = new boolean[256];
+      var seenCount = 0;
+      var size = in.size();
+
+      for (long position = 0; position < size && seenCount < 256; position += CHUNK_SIZE) {
+        var buffer = map(in, position, Math.min(CHUNK_SIZE, size - position));
+        while (buffer.hasRemaining() && seenCount < 256) {
+          var b = buffer.get();
+          if (!seen[b & 0xFF]) {
+            seen[b & 0xFF] = true;
+            seenCount++;
+            out.write(b);
+          }
+        }
+      }
+    }
+  }
+
+  // O(n). Same result as StringUtils.capitalize() on the whole file:
+  // leading and trailing whitespace is dropped, runs of spaces become a
+  // single space, and every word (text between spaces) gets an upper
+  // case first letter and lower case for the rest.
+  //
+  // We can't write whitespace as soon as we see it, because it might
+  // turn out to be trailing whitespace. So we hold it back in a small
+  // pending buffer and only write it once another word starts.
+  public static void capitalize(Path input, Path output) throws IOException {
+    try (var in = FileChannel.open(input, StandardOpenOption.READ);
+         var out = new Output(output)) {
+
+      var pending = new byte[16];
+      var pendingCount = 0;
+      var atWordStart = true;
+      var wroteAnything = false;
+      var size = in.size();
+
+      for (long position = 0; position < size; position += CHUNK_SIZE) {
+        var buffer = map(in, position, Math.min(CHUNK_SIZE, size - position));
+
+        while (buffer.hasRemaining()) {
+          var b = buffer.get();
+
+          if ((b & 0xFF) <= ' ') {
+            // Collapse runs of spaces, but keep other whitespace as is.
+            if (b == ' ' && pendingCount > 0 && pending[pendingCount - 1] == ' ')
+              continue;
+            if (pendingCount == pending.length)
+              pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = b;
+
+            // A tab or newline right after a space is the first
+            // "letter" of the next word (unless we're still in the
+            // leading whitespace, which trim() drops).
+            if (b == ' ')
+              atWordStart = true;
+            else if (wroteAnything)
+              atWordStart = false;
+            continue;
+          }
+
+          if (pendingCount > 0) {
+            if (wroteAnything)
+              out.write(pending, pendingCount);
+            pendingCount = 0;
+          }
+
+          out.write(atWordStart ? toUpperCase(b) : toLowerCase(b));
+          atWordStart = false;
+          wroteAnything = true;
+        }
+      }
+    }
+  }
+
+  // O(n). Same result as StringUtils.reverseWords() on the whole file:
+  // the words (text between spaces) are written in reverse order.
+  //
+  // We read the file backwards, one chunk at a time, and scan each chunk
+  // from its end. Every space we meet ends a word, which we can write
+  // right away. A word that starts in an earlier chunk is only partly
+  // visible; we keep that part in a carry buffer and put it in front of
+  // the rest when we reach the word's start in the earlier chunk.
+  public static void reverseWords(Path input, Path output) throws IOException {
+    try (var in = FileChannel.open(input, StandardOpenOption.READ);
+         var out = new Output(output)) {
+
+      var start = firstNonBlank(in);
+      var end = lastNonBlank(in) + 1;
+
+      var carry = new byte[16];
+      var carryCount = 0;
+
+      for (long chunkEnd = end; chunkEnd > start; chunkEnd -= CHUNK_SIZE) {
+        var chunkStart = Math.max(start, chunkEnd - CHUNK_SIZE);
+        var buffer = map(in, chunkStart, chunkEnd - chunkStart);
+
+        var wordEnd = buffer.limit();
+        for (var i = wordEnd - 1; i >= 0; i--) {
+          if (buffer.get(i) != ' ')
+            continue;
+
+          out.write(buffer, i + 1, wordEnd);
+          out.write(carry, carryCount);
+          out.write((byte) ' ');
+          carryCount = 0;
+          wordEnd = i;
+        }
+
+        // buffer[0 .. wordEnd) is the end of a word that started in an
+        // earlier chunk (or the first word of the file).
+        if (carryCount + wordEnd > carry.length)
+          carry = Arrays.copyOf(carry, Math.max(carry.length * 2, carryCount + wordEnd));
+        System.arraycopy(carry, 0, carry, wordEnd, carryCount);
+        buffer.duplicate().position(0).get(carry, 0, wordEnd);
+        carryCount += wordEnd;
+      }
+
+      out.write(carry, carryCount);
+    }
+  }
+
+  private static long firstNonBlank(FileChannel channel) throws IOException {
+    var size = channel.size();
+    for (long position = 0; position < size; position += CHUNK_SIZE) {
+      var buffer = map(channel, position, Math.min(CHUNK_SIZE, size - position));
+      for (var i = 0; i < buffer.limit(); i++)
+        if ((buffer.get(i) & 0xFF) > ' ')
+          return position + i;
+    }
+
+    return size;
+  }
+
+  private static long lastNonBlank(FileChannel channel) throws IOException {
+    for (long end = channel.size(); end > 0; end -= CHUNK_SIZE) {
+      var start = Math.max(0, end - CHUNK_SIZE);
+      var buffer = map(channel, start, end - start);
+      for (var i = buffer.limit() - 1; i >= 0; i--)
+        if ((buffer.get(i) & 0xFF) > ' ')
+          return start + i;
+    }
+
+    return -1;
+  }
+
+  private static IntStream chunks(long size) {
+    var count = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    return IntStream.range(0, count).parallel();
+  }
+
+  // Used from parallel streams, which can't throw checked exceptions.
+  private static MappedByteBuffer map(FileChannel channel, int chunk) {
+    try {
+      var position = (long) chunk * CHUNK_SIZE;
+      return map(channel, position, Math.min(CHUNK_SIZE, channel.size() - position));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long position, long size)
+          throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+
+  private static long[] add(long[] first, long[] second) {
+    var sum = new long[first.length];
+    for (var i = 0; i < sum.length; i++)
+      sum[i] = first[i] + second[i];
+    return sum;
+  }
+
+  private static byte toUpperCase(byte b) {
+    return (b >= 'a' && b <= 'z') ? (byte) (b - 32) : b;
+  }
+
+  private static byte toLowerCase(byte b) {
+    return (b >= 'A' && b <= 'Z') ? (byte) (b + 32) : b;
+  }
+
+  // Collects output bytes in one reusable buffer and writes it to the
+  // file whenever it fills up.
+  private static class Output implements AutoCloseable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+    public Output(Path file) throws IOException {
+      channel = FileChannel.open(file,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void write(byte b) throws IOException {
+      if (!buffer.hasRemaining())
+        flush();
+      buffer.put(b);
+    }
+
+    public void write(byte[] bytes, int count) throws IOException {
+      var offset = 0;
+      while (offset < count) {
+        if (!buffer.hasRemaining())
+          flush();
+        var n = Math.min(count - offset, buffer.remaining());
+        buffer.put(bytes, offset, n);
+        offset += n;
+      }
+    }
+
+    // Writes source[from .. to) without changing source's position.
+    public void write(ByteBuffer source, int from, int to) throws IOException {
+      while (from < to) {
+        if (!buffer.hasRemaining())
+          flush();
+        var n = Math.min(to - from, buffer.remaining());
+        buffer.put(source.duplicate().position(from).limit(from + n));
+        from += n;
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+      buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.codewithmosh;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.HashMap;
 
@@ -37,13 +39,51 @@ public class StringUtils {
     return String.join(" ", words);
   }
 
+  // str2 is a rotation of str1 if it appears in str1 + str1. Instead of
+  // building that string, we run a KMP search for str2 over str1 twice
+  // in a row. That's O(n) and allocates nothing but the pattern's
+  // failure table.
   public static boolean areRotations(
             String str1, String str2) {
     if (str1 == null || str2 == null)
       return false;
 
-    return (str1.length() == str2.length() &&
-            (str1 + str1).contains(str2));
+    var length = str1.length();
+    if (length != str2.length())
+      return false;
+    if (length == 0)
+      return true;
+
+    var failure = failureTable(str2);
+    var matched = 0;
+    for (var i = 0; i < 2 * length - 1; i++) {
+      var ch = str1.charAt(i < length ? i : i - length);
+      while (matched > 0 && str2.charAt(matched) != ch)
+        matched = failure[matched - 1];
+      if (str2.charAt(matched) == ch)
+        matched++;
+      if (matched == length)
+        return true;
+    }
+
+    return false;
+  }
+
+  // failure[i] is the length of the longest proper prefix of
+  // pattern[0..i] that is also a suffix of it. After a mismatch, the
+  // search falls back to that many matched characters instead of
+  // starting over.
+  private static int[] failureTable(String pattern) {
+    var failure = new int[pattern.length()];
+    var length = 0;
+    for (var i = 1; i < pattern.length(); i++) {
+      while (length > 0 && pattern.charAt(i) != pattern.charAt(length))
+        length = failure[length - 1];
+      if (pattern.charAt(i) == pattern.charAt(length))
+        length++;
+      failure[i] = length;
+    }
+    return failure;
   }
 
   public static String removeDuplicates(String str) {
@@ -157,15 +197,65 @@ public class StringUtils {
     return true;
   }
 
+  // Byte overloads for UTF-8 text that is mostly ASCII. When every byte
+  // is ASCII, they work on the bytes directly, 8 at a time (see
+  // AsciiBytes), without creating a String. As soon as the input has a
+  // non-ASCII byte, they decode it and use the String version instead.
+
+  public static int countVowels(byte[] bytes, int offset, int length) {
+    return countVowels(ByteBuffer.wrap(bytes, offset, length));
+  }
+
+  public static int countVowels(ByteBuffer buffer) {
+    if (!AsciiBytes.isAscii(buffer))
+      return countVowels(decode(buffer));
+
+    return AsciiBytes.countVowels(buffer);
+  }
+
+  public static byte[] toLowerCase(byte[] bytes, int offset, int length) {
+    return toLowerCase(ByteBuffer.wrap(bytes, offset, length));
+  }
 
+  public static byte[] toLowerCase(ByteBuffer buffer) {
+    if (!AsciiBytes.isAscii(buffer))
+      return decode(buffer).toLowerCase().getBytes(StandardCharsets.UTF_8);
 
+    return AsciiBytes.toLowerCase(buffer);
+  }
 
+  public static boolean isPalindrome(byte[] bytes, int offset, int length) {
+    return isPalindrome(ByteBuffer.wrap(bytes, offset, length));
+  }
 
+  public static boolean isPalindrome(ByteBuffer buffer) {
+    if (!AsciiBytes.isAscii(buffer))
+      return isPalindrome(decode(buffer));
 
+    return AsciiBytes.isPalindrome(buffer);
+  }
 
+  public static char getMaxOccuringChar(byte[] bytes, int offset, int length) {
+    return getMaxOccuringChar(ByteBuffer.wrap(bytes, offset, length));
+  }
 
+  public static char getMaxOccuringChar(ByteBuffer buffer) {
+    if (!buffer.hasRemaining())
+      throw new IllegalArgumentException();
 
+    if (!AsciiBytes.isAscii(buffer))
+      return getMaxOccuringChar(decode(buffer));
 
+    var frequencies = AsciiBytes.frequencies(buffer);
+    var result = 0;
+    for (var i = 1; i < frequencies.length; i++)
+      if (frequencies[i] > frequencies[result])
+        result = i;
 
+    return (char) result;
+  }
 
+  private static String decode(ByteBuffer buffer) {
+    return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+  }
 }
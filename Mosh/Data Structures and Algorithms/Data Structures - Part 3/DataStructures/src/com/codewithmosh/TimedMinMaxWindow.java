@@ -0,0 +1,69 @@
+package com.codewithmosh;
+
+// The minimum and maximum of the values pushed in the last T
+// milliseconds (or any other unit of time), in O(1).
+//
+// This is MinMaxWindow with timestamps instead of sequence numbers: a
+// sample pushed at time t is in the window until the time reaches
+// t + duration. The deques only keep the samples that can still be the
+// minimum or maximum, so the memory doesn't depend on how many samples
+// arrive in a window.
+public class TimedMinMaxWindow {
+  private final long duration;
+  private final MonotonicDeque mins = new MonotonicDeque(false);
+  private final MonotonicDeque maxes = new MonotonicDeque(true);
+  private long now = Long.MIN_VALUE;
+
+  public TimedMinMaxWindow(long duration) {
+    if (duration <= 0)
+      throw new IllegalArgumentException("duration must be 1 or greater.");
+
+    this.duration = duration;
+  }
+
+  // O(1) amortized. Timestamps can't go back in time.
+  public void push(long timestamp, int value) {
+    advanceTo(timestamp);
+
+    mins.add(timestamp, value);
+    maxes.add(timestamp, value);
+  }
+
+  // Moves the window to end at the given time, evicting the samples that
+  // are now older than the duration. Use this when time passes without
+  // new samples.
+  public void advanceTo(long time) {
+    if (time < now)
+      throw new IllegalArgumentException("Time can't go back: " + time + " < " + now);
+
+    now = time;
+    mins.removeUpTo(time - duration);
+    maxes.removeUpTo(time - duration);
+  }
+
+  // O(1)
+  public int min() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return mins.first();
+  }
+
+  // O(1)
+  public int max() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    return maxes.first();
+  }
+
+  // The newest sample is always in both deques, so the window is empty
+  // exactly when they are.
+  public boolean isEmpty() {
+    return mins.isEmpty();
+  }
+
+  public long duration() {
+    return duration;
+  }
+}
@@ -1,16 +1,63 @@
 package com.codewithmosh;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Tree {
+  // Besides its value and children, every node remembers a few facts
+  // about the sub-tree it is the root of. They only change for the nodes
+  // on the path from the root to a new node, so insert() updates them
+  // on the way back up, and the queries below just read them at the
+  // root in O(1) instead of walking the whole tree.
   private class Node {
     private int value;
     private Node leftChild;
     private Node rightChild;
 
+    private int height;        // a new node is a leaf: height 0
+    private int size = 1;
+    private int leaves = 1;
+    private int min;
+    private int max;
+    private boolean balanced = true;
+
     public Node(int value) {
       this.value = value;
+      this.min = value;
+      this.max = value;
+    }
+
+    // O(1). Recomputes the facts from the node's children, which must
+    // be up to date.
+    private void update() {
+      var leftHeight = height(leftChild);
+      var rightHeight = height(rightChild);
+      height = 1 + Math.max(leftHeight, rightHeight);
+      size = 1 + size(leftChild) + size(rightChild);
+      leaves = isLeaf(this) ? 1 : countLeaves(leftChild) + countLeaves(rightChild);
+
+      min = value;
+      max = value;
+      if (leftChild != null) {
+        min = Math.min(min, leftChild.min);
+        max = Math.max(max, leftChild.max);
+      }
+      if (rightChild != null) {
+        min = Math.min(min, rightChild.min);
+        max = Math.max(max, rightChild.max);
+      }
+
+      balanced = Math.abs(leftHeight - rightHeight) <= 1 &&
+              isBalanced(leftChild) &&
+              isBalanced(rightChild);
     }
 
     @Override
@@ -20,17 +67,54 @@ public class Tree {
   }
 
   private Node root;
+  private int version;               // changes on every insert()
+  private AncestryIndex ancestryIndex;
+
+  // Inserting sorted values one at a time gives us a tree that is really
+  // a linked list (height n - 1). Instead, we make the middle value the
+  // root, and build the left and right sub-trees from the values before
+  // and after it the same way. Each half is at most one value bigger
+  // than the other, so the tree is as short as it can be: height
+  // floor(log2(n)). O(n), and the recursion is only O(log n) deep.
+  public static Tree fromSorted(int[] values) {
+    for (var i = 1; i < values.length; i++)
+      if (values[i] < values[i - 1])
+        throw new IllegalArgumentException("values must be sorted.");
 
+    var tree = new Tree();
+    tree.root = tree.build(values, 0, values.length - 1);
+    return tree;
+  }
+
+  private Node build(int[] values, int first, int last) {
+    if (first > last)
+      return null;
+
+    var middle = (first + last) >>> 1;
+
+    var node = new Node(values[middle]);
+    node.leftChild = build(values, first, middle - 1);
+    node.rightChild = build(values, middle + 1, last);
+    node.update();
+    return node;
+  }
+
+  // O(h). We remember the path we took, so we can update the sub-tree
+  // facts of every node on it, from the new node's parent up to the root.
   public void insert(int value) {
     var node = new Node(value);
+    version++;
+    ancestryIndex = null;
 
     if (root == null) {
       root = node;
       return;
     }
 
+    var path = new ArrayList<Node>();
     var current = root;
     while (true) {
+      path.add(current);
       if (value < current.value) {
         if (current.leftChild == null) {
           current.leftChild = node;
@@ -45,6 +129,9 @@ public class Tree {
         current = current.rightChild;
       }
     }
+
+    for (var i = path.size() - 1; i >= 0; i--)
+      path.get(i).update();
   }
 
   public boolean find(int value) {
@@ -99,6 +186,7 @@ public class Tree {
     System.out.println(root.value);
   }
 
+  // O(1)
   public int height() {
     return height(root);
   }
@@ -107,41 +195,19 @@ public class Tree {
     if (root == null)
       return -1;
 
-    if (isLeaf(root))
-      return 0;
-
-    return 1 + Math.max(
-            height(root.leftChild),
-            height(root.rightChild));
+    return root.height;
   }
 
   private boolean isLeaf(Node node) {
     return node.leftChild == null && node.rightChild == null;
   }
 
-  // O(log n)
+  // O(1)
   public int min() {
     if (root == null)
       throw new IllegalStateException();
 
-    var current = root;
-    var last = current;
-    while (current != null) {
-      last = current;
-      current = current.leftChild;
-    }
-    return last.value;
-  }
-
-  // O(n)
-  private int min(Node root) {
-    if (isLeaf(root))
-      return root.value;
-
-    var left = min(root.leftChild);
-    var right = min(root.rightChild);
-
-    return Math.min(Math.min(left, right), root.value);
+    return root.min;
   }
 
   public boolean equals(Tree other) {
@@ -206,6 +272,7 @@ public class Tree {
   }
 
 
+  // O(1)
   public int size() {
     return size(root);
   }
@@ -214,12 +281,10 @@ public class Tree {
     if (root == null)
       return 0;
 
-    if (isLeaf(root))
-      return 1;
-
-    return 1 + size(root.leftChild) + size(root.rightChild);
+    return root.size;
   }
 
+  // O(1)
   public int countLeaves() {
     return countLeaves(root);
   }
@@ -228,24 +293,15 @@ public class Tree {
     if (root == null)
       return 0;
 
-    if (isLeaf(root))
-      return 1;
-
-    return countLeaves(root.leftChild) + countLeaves(root.rightChild);
+    return root.leaves;
   }
 
+  // O(1)
   public int max() {
     if (root == null)
       throw new IllegalStateException();
 
-    return max(root);
-  }
-
-  private int max(Node root) {
-    if (root.rightChild == null)
-      return root.value;
-
-    return max(root.rightChild);
+    return root.max;
   }
 
   public boolean contains(int value) {
@@ -309,6 +365,7 @@ public class Tree {
     return false;
   }
 
+  // O(1)
   public boolean isBalanced() {
     return isBalanced(root);
   }
@@ -317,14 +374,383 @@ public class Tree {
     if (root == null)
       return true;
 
-    var balanceFactor = height(root.leftChild) - height(root.rightChild);
-
-    return Math.abs(balanceFactor) <= 1 &&
-            isBalanced(root.leftChild) &&
-            isBalanced(root.rightChild);
+    return root.balanced;
   }
 
+  // O(1)
   public boolean isPerfect() {
     return size() == (Math.pow(2, height() + 1) - 1);
   }
-}
\ No newline at end of file
+
+  // O(n log h) to build; the index is kept until the next insert(), so
+  // calling this again on an unchanged tree is O(1).
+  public AncestryIndex buildAncestryIndex() {
+    if (ancestryIndex == null)
+      ancestryIndex = new AncestryIndex();
+    return ancestryIndex;
+  }
+
+  // Answers ancestor questions without walking the tree.
+  //
+  // We number the nodes in pre-order (0 for the root), and for every
+  // node we store its depth and its ancestors 1, 2, 4, 8, ... levels up
+  // (binary lifting: ancestors[j][i] is the ancestor 2^j levels above
+  // node i, or the root if there isn't one). To go k levels up, we take
+  // the jumps for the bits of k: O(log h).
+  //
+  // In pre-order, a node's sub-tree is the node followed by the next
+  // size - 1 nodes. So "is a an ancestor of b" is just a range check.
+  //
+  // Queries take values, like the rest of Tree. If a value is in the
+  // tree more than once, we use the copy that comes first in pre-order.
+  // After an insert(), the index is out of date and its queries throw
+  // IllegalStateException; build a new one.
+  public class AncestryIndex {
+    private final int version;
+    private final IntIntHashMap ids;   // value -> node id
+    private final int[] values;        // node id -> value
+    private final int[] depths;
+    private final int[] sizes;         // sub-tree sizes
+    private final int[][] ancestors;
+
+    private AncestryIndex() {
+      version = Tree.this.version;
+
+      var count = size();
+      ids = new IntIntHashMap(count);
+      values = new int[count];
+      depths = new int[count];
+      sizes = new int[count];
+      var parents = new int[count];
+
+      // Pre-order with an explicit stack (a degenerate tree can be very
+      // deep). Next to every node, we push the id of its parent.
+      var nodes = new ArrayDeque<Node>();
+      var parentIds = new Stack();
+      if (root != null) {
+        nodes.push(root);
+        parentIds.push(0);
+      }
+
+      var maxDepth = 0;
+      for (var id = 0; !nodes.isEmpty(); id++) {
+        var node = nodes.pop();
+        var parent = parentIds.pop();
+
+        if (!ids.containsKey(node.value))
+          ids.put(node.value, id);
+        values[id] = node.value;
+        sizes[id] = node.size;
+        parents[id] = parent;
+        depths[id] = id == 0 ? 0 : depths[parent] + 1;
+        maxDepth = Math.max(maxDepth, depths[id]);
+
+        if (node.rightChild != null) {
+          nodes.push(node.rightChild);
+          parentIds.push(id);
+        }
+        if (node.leftChild != null) {
+          nodes.push(node.leftChild);
+          parentIds.push(id);
+        }
+      }
+
+      // We only need as many levels as it takes to jump from the deepest
+      // node to the root.
+      var levels = 1;
+      while ((1 << levels) <= maxDepth)
+        levels++;
+
+      ancestors = new int[levels][];
+      ancestors[0] = parents;
+      for (var j = 1; j < levels; j++) {
+        var half = ancestors[j - 1];
+        var jump = new int[count];
+        for (var i = 0; i < count; i++)
+          jump[i] = half[half[i]];
+        ancestors[j] = jump;
+      }
+    }
+
+    // O(1)
+    public boolean contains(int value) {
+      checkVersion();
+      return ids.containsKey(value);
+    }
+
+    // O(1). The root is at depth 0.
+    public int depth(int value) {
+      return depths[idOf(value)];
+    }
+
+    // O(1). True if ancestor is above value on the path from the root
+    // (a node isn't its own ancestor, as in getAncestors()).
+    public boolean isAncestor(int ancestor, int value) {
+      var a = idOf(ancestor);
+      var b = idOf(value);
+      return a < b && b < a + sizes[a];
+    }
+
+    // O(1). True if both values have the same parent.
+    public boolean areSibling(int first, int second) {
+      var a = idOf(first);
+      var b = idOf(second);
+      return a != b && a != 0 && b != 0 && ancestors[0][a] == ancestors[0][b];
+    }
+
+    // O(log h). The value k levels above the given one (k = 0 is the
+    // value itself).
+    public int kthAncestor(int value, int k) {
+      var id = idOf(value);
+      if (k < 0 || k > depths[id])
+        throw new IllegalArgumentException("k must be between 0 and " + depths[id] + ".");
+
+      return values[jump(id, k)];
+    }
+
+    // O(d log h), where d is the depth. The ancestors, closest first,
+    // like Tree.getAncestors().
+    public List<Integer> getAncestors(int value) {
+      var id = idOf(value);
+      var list = new ArrayList<Integer>(depths[id]);
+      for (var current = id; current != 0; ) {
+        current = ancestors[0][current];
+        list.add(values[current]);
+      }
+      return list;
+    }
+
+    // O(log h). The lowest common ancestor: the deepest node that has
+    // both values in its sub-tree (it can be one of the values).
+    public int lca(int first, int second) {
+      return values[lcaId(idOf(first), idOf(second))];
+    }
+
+    // O(log h). The number of edges between the two values.
+    public int distance(int first, int second) {
+      var a = idOf(first);
+      var b = idOf(second);
+      return depths[a] + depths[b] - 2 * depths[lcaId(a, b)];
+    }
+
+    public boolean isUpToDate() {
+      return version == Tree.this.version;
+    }
+
+    // First we bring the deeper node up to the other one's depth. If
+    // they're not the same node yet, we make the biggest jumps that keep
+    // them apart; after that, their parent is the answer.
+    private int lcaId(int a, int b) {
+      if (a + sizes[a] > b && a <= b)
+        return a;
+      if (b + sizes[b] > a && b <= a)
+        return b;
+
+      if (depths[a] < depths[b]) {
+        var temp = a;
+        a = b;
+        b = temp;
+      }
+      a = jump(a, depths[a] - depths[b]);
+
+      for (var j = ancestors.length - 1; j >= 0; j--) {
+        if (ancestors[j][a] != ancestors[j][b]) {
+          a = ancestors[j][a];
+          b = ancestors[j][b];
+        }
+      }
+      return ancestors[0][a];
+    }
+
+    private int jump(int id, int k) {
+      for (var j = 0; k != 0; j++, k >>>= 1)
+        if ((k & 1) != 0)
+          id = ancestors[j][id];
+      return id;
+    }
+
+    private int idOf(int value) {
+      checkVersion();
+
+      var id = ids.getOrDefault(value, -1);
+      if (id == -1)
+        throw new IllegalArgumentException("Value not in the tree: " + value);
+      return id;
+    }
+
+    private void checkVersion() {
+      if (!isUpToDate())
+        throw new IllegalStateException("The tree has changed since the index was built.");
+    }
+  }
+
+  // We save a tree as:
+  //
+  //   MAGIC, the number of nodes (n)
+  //   the structure bitmap: 2 bits per node, in pre-order: does it have
+  //     a left child, does it have a right child (n / 4 bytes)
+  //   the values, in pre-order (4 bytes each)
+  //
+  // That's all we need to rebuild exactly the same tree, without
+  // comparing or re-inserting anything. Both directions walk the tree
+  // with an explicit stack instead of recursion, so even a degenerate
+  // tree with millions of nodes won't overflow the call stack.
+  //
+  // The channel can be a FileChannel, a socket, or anything else.
+  private static final int MAGIC = 0x42535431;  // "BST1"
+  private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+  // O(n)
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    var count = 0;
+    var bitmap = new byte[16];
+    for (var iterator = new PreOrderIterator(); iterator.hasNext(); count++) {
+      var node = iterator.next();
+      if (count / 4 == bitmap.length)
+        bitmap = Arrays.copyOf(bitmap, bitmap.length * 2);
+
+      var bits = (node.leftChild != null ? 1 : 0) | (node.rightChild != null ? 2 : 0);
+      bitmap[count / 4] |= bits << (count % 4 * 2);
+    }
+
+    var buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+    buffer.putInt(MAGIC).putInt(count);
+
+    var bitmapLength = bitmapLength(count);
+    for (var offset = 0; offset < bitmapLength; ) {
+      var length = Math.min(buffer.remaining(), bitmapLength - offset);
+      buffer.put(bitmap, offset, length);
+      offset += length;
+      if (!buffer.hasRemaining())
+        flush(buffer, channel);
+    }
+
+    for (var iterator = new PreOrderIterator(); iterator.hasNext(); ) {
+      if (buffer.remaining() < Integer.BYTES)
+        flush(buffer, channel);
+      buffer.putInt(iterator.next().value);
+    }
+    flush(buffer, channel);
+  }
+
+  // O(n). Reads a tree saved by writeTo().
+  //
+  // In pre-order, a node's left child (if any) comes right after it.
+  // If it has no left child, the next node is the right child of the
+  // closest node above it that is still waiting for one. So we keep the
+  // nodes waiting for a right child on a stack.
+  public static Tree readFrom(ReadableByteChannel channel) throws IOException {
+    var buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+    buffer.limit(0);
+
+    require(buffer, channel, 2 * Integer.BYTES);
+    if (buffer.getInt() != MAGIC)
+      throw new StreamCorruptedException("Not a saved tree.");
+    var count = buffer.getInt();
+    if (count < 0)
+      throw new StreamCorruptedException("Invalid node count: " + count);
+
+    // The count comes from the stream, so it may be garbage. Instead of
+    // trusting it with one big allocation, we grow the bitmap as its
+    // bytes actually arrive; a count that is too big ends in an
+    // EOFException once the real data runs out.
+    var bitmapLength = bitmapLength(count);
+    var bitmap = new byte[Math.min(bitmapLength, IO_BUFFER_SIZE)];
+    for (var offset = 0; offset < bitmapLength; ) {
+      require(buffer, channel, 1);
+      if (offset == bitmap.length)
+        bitmap = Arrays.copyOf(bitmap, (int) Math.min(bitmapLength, 2L * bitmap.length));
+      var length = Math.min(buffer.remaining(), bitmap.length - offset);
+      buffer.get(bitmap, offset, length);
+      offset += length;
+    }
+
+    var tree = new Tree();
+    var nodes = new ArrayList<Node>();
+    var waitingForRight = new ArrayDeque<Node>();
+    Node waitingForLeft = null;
+
+    for (var i = 0; i < count; i++) {
+      require(buffer, channel, Integer.BYTES);
+      var node = tree.new Node(buffer.getInt());
+      nodes.add(node);
+
+      if (i == 0)
+        tree.root = node;
+      else if (waitingForLeft != null) {
+        waitingForLeft.leftChild = node;
+        waitingForLeft = null;
+      } else if (!waitingForRight.isEmpty())
+        waitingForRight.pop().rightChild = node;
+      else
+        throw new StreamCorruptedException("Invalid tree structure.");
+
+      var bits = bitmap[i / 4] >> (i % 4 * 2);
+      if ((bits & 2) != 0)
+        waitingForRight.push(node);
+      if ((bits & 1) != 0)
+        waitingForLeft = node;
+    }
+
+    if (waitingForLeft != null || !waitingForRight.isEmpty())
+      throw new StreamCorruptedException("Invalid tree structure.");
+
+    // In pre-order, children come after their parent, so going backwards
+    // updates every node after its children.
+    for (var i = nodes.size() - 1; i >= 0; i--)
+      nodes.get(i).update();
+
+    return tree;
+  }
+
+  // 2 bits per node, rounded up. In longs, so that a count close to
+  // Integer.MAX_VALUE doesn't overflow.
+  private static int bitmapLength(int count) {
+    return (int) (((long) count + 3) / 4);
+  }
+
+  private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining())
+      channel.write(buffer);
+    buffer.clear();
+  }
+
+  // Makes sure the buffer has at least the given number of bytes to
+  // read, reading more from the channel if it doesn't.
+  private static void require(ByteBuffer buffer, ReadableByteChannel channel, int bytes)
+          throws IOException {
+    if (buffer.remaining() >= bytes)
+      return;
+
+    buffer.compact();
+    while (buffer.position() < bytes)
+      if (channel.read(buffer) < 0)
+        throw new EOFException();
+    buffer.flip();
+  }
+
+  // Visits the nodes in pre-order (root, left, right) using a stack:
+  // we push the right child first, so the left one comes out first.
+  private class PreOrderIterator {
+    private final ArrayDeque<Node> stack = new ArrayDeque<>();
+
+    PreOrderIterator() {
+      if (root != null)
+        stack.push(root);
+    }
+
+    boolean hasNext() {
+      return !stack.isEmpty();
+    }
+
+    Node next() {
+      var node = stack.pop();
+      if (node.rightChild != null)
+        stack.push(node.rightChild);
+      if (node.leftChild != null)
+        stack.push(node.leftChild);
+      return node;
+    }
+  }
+}
@@ -48,6 +48,18 @@ public class Trie {
 
   private Node root = new Node(' ');
 
+  // Optional. If set, contains() asks it before walking down the trie,
+  // and a "definitely not" answer saves us the walk (see
+  // MembershipFilter).
+  private MembershipFilter filter;
+
+  public Trie() {
+  }
+
+  public Trie(MembershipFilter filter) {
+    this.filter = filter;
+  }
+
   public void insert(String word) {
     var current = root;
     for (var ch : word.toCharArray()) {
@@ -55,13 +67,22 @@ public class Trie {
         current.addChild(ch);
       current = current.getChild(ch);
     }
+    if (current.isEndOfWord)
+      return;
     current.isEndOfWord = true;
+
+    // A full filter would miss this word, so we stop using it.
+    if (filter != null && !filter.add(MembershipFilter.hash(word)))
+      filter = null;
   }
 
   public boolean contains(String word) {
     if (word == null)
       return false;
 
+    if (filter != null && !filter.mightContain(MembershipFilter.hash(word)))
+      return false;
+
     var current = root;
     for (var ch : word.toCharArray()) {
       if (!current.hasChild(ch))
@@ -87,9 +108,17 @@ public class Trie {
     if (word == null)
       return;
 
+    if (filter instanceof DeletableMembershipFilter && contains(word))
+      ((DeletableMembershipFilter) filter).remove(MembershipFilter.hash(word));
+
     remove(root, word, 0);
   }
 
+  // The filter in use, or null if there's none (or it filled up).
+  public MembershipFilter getFilter() {
+    return filter;
+  }
+
   private void remove(Node root, String word, int index) {
     if (index == word.length()) {
       root.isEndOfWord = false;
@@ -144,6 +173,9 @@ public class Trie {
     if (word == null)
       return false;
 
+    if (filter != null && !filter.mightContain(MembershipFilter.hash(word)))
+      return false;
+
     return containsRecursive(root, word, 0);
   }
 
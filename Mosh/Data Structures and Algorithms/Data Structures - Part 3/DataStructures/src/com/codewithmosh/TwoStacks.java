@@ -23,7 +23,10 @@ import java.util.Arrays;
 //
 // When pushing into either stack, we check to
 // see if top1 and top2 are next to each other.
-// That means both stacks are full.
+// That means both stacks are full. Instead of
+// failing, we double the array: the first stack
+// stays at the start and the second stack moves
+// to the end of the new array.
 
 public class TwoStacks {
   private int top1;
@@ -39,9 +42,10 @@ public class TwoStacks {
     top2 = capacity;
   }
 
+  // O(1) amortized
   public void push1(int item) {
     if (isFull1())
-      throw new IllegalStateException();
+      grow();
 
     items[++top1] = item;
   }
@@ -61,9 +65,10 @@ public class TwoStacks {
     return top1 + 1 == top2;
   }
 
+  // O(1) amortized
   public void push2(int item) {
     if (isFull2())
-      throw new IllegalStateException();
+      grow();
 
     items[--top2] = item;
   }
@@ -82,6 +87,17 @@ public class TwoStacks {
     return top2 - 1 == top1;
   }
 
+  private void grow() {
+    var newItems = new int[items.length * 2];
+    var size2 = items.length - top2;
+
+    System.arraycopy(items, 0, newItems, 0, top1 + 1);
+    System.arraycopy(items, top2, newItems, newItems.length - size2, size2);
+
+    top2 = newItems.length - size2;
+    items = newItems;
+  }
+
   @Override
   public String toString() {
     return Arrays.toString(items);
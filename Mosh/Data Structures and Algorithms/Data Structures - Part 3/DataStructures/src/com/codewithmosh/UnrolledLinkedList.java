@@ -0,0 +1,311 @@
+package com.codewithmosh;
+
+import java.util.NoSuchElementException;
+
+// A linked list where every node holds up to 64 ints instead of one.
+//
+// In LinkedList every int costs a whole Node object (header, value and
+// next pointer: 24 bytes or more), and walking the list means following
+// a pointer to a different place in memory for every item. Here a node
+// stores its items in an int[64] and the pointer chasing happens once
+// per 64 items. Scanning a chunk is a tight loop over an array, which
+// is about as fast as the CPU can go.
+//
+// Inside a node the items live in items[start .. start + count). Keeping
+// a start offset (and not always starting at 0) leaves room at the front
+// of the first node, so addFirst() is O(1) just like addLast().
+//
+// Nodes in the middle of the list are kept at least half full: inserting
+// into a full node splits it in two, and removing from a node that drops
+// below half full merges it with (or borrows from) a neighbour. The first
+// and last nodes are allowed to be emptier, since that's where the list
+// grows and shrinks.
+public class UnrolledLinkedList {
+  public static final int CHUNK_SIZE = 64;
+  private static final int MIN_FILL = CHUNK_SIZE / 2;
+
+  // Receives the items one chunk at a time: items[from .. to).
+  public interface ChunkVisitor {
+    void visit(int[] items, int from, int to);
+  }
+
+  private class Node {
+    private final int[] items = new int[CHUNK_SIZE];
+    private int start;
+    private int count;
+    private Node previous;
+    private Node next;
+
+    public int end() {
+      return start + count;
+    }
+  }
+
+  private Node first;
+  private Node last;
+  private int size;
+
+  // O(1). If the last node has reached the end of its array but is
+  // at most half full (items were removed from its front), we slide
+  // its items back to the start instead of adding a node. Moving at
+  // most 32 items frees at least 32 slots, so this stays O(1) amortized.
+  public void addLast(int item) {
+    if (last == null || last.end() == CHUNK_SIZE) {
+      if (last != null && last.count <= MIN_FILL)
+        compact(last, 0);
+      else
+        linkLast(new Node());
+    }
+
+    last.items[last.end()] = item;
+    last.count++;
+    size++;
+  }
+
+  // O(1), mirroring addLast().
+  public void addFirst(int item) {
+    if (first == null || first.start == 0) {
+      if (first != null && first.count <= MIN_FILL)
+        compact(first, CHUNK_SIZE - first.count);
+      else {
+        var node = new Node();
+        node.start = CHUNK_SIZE;
+        linkFirst(node);
+      }
+    }
+
+    first.items[--first.start] = item;
+    first.count++;
+    size++;
+  }
+
+  // O(1)
+  public int removeFirst() {
+    if (isEmpty())
+      throw new NoSuchElementException();
+
+    var item = first.items[first.start++];
+    first.count--;
+    size--;
+
+    if (first.count == 0)
+      unlink(first);
+
+    return item;
+  }
+
+  // O(1)
+  public int removeLast() {
+    if (isEmpty())
+      throw new NoSuchElementException();
+
+    last.count--;
+    var item = last.items[last.end()];
+    size--;
+
+    if (last.count == 0)
+      unlink(last);
+
+    return item;
+  }
+
+  // O(n / 64): we skip whole nodes until we reach the right one.
+  public int get(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException();
+
+    var node = first;
+    while (index >= node.count) {
+      index -= node.count;
+      node = node.next;
+    }
+
+    return node.items[node.start + index];
+  }
+
+  // O(n / 64) to find the node, then O(64) to shift within it.
+  public void insertAt(int index, int item) {
+    if (index < 0 || index > size)
+      throw new IndexOutOfBoundsException();
+
+    if (index == size) {
+      addLast(item);
+      return;
+    }
+
+    var node = first;
+    while (index > node.count || (index == node.count && node.next != null)) {
+      index -= node.count;
+      node = node.next;
+    }
+
+    if (node.count == CHUNK_SIZE) {
+      // Split the full node: the second half moves into a new node.
+      var half = split(node);
+      if (index > node.count) {
+        index -= node.count;
+        node = half;
+      }
+    }
+
+    if (node.end() == CHUNK_SIZE)
+      compact(node, 0);
+
+    var position = node.start + index;
+    System.arraycopy(node.items, position, node.items, position + 1, node.count - index);
+    node.items[position] = item;
+    node.count++;
+    size++;
+  }
+
+  // O(n / 64) to find the node, then O(64) to shift within it.
+  public int removeAt(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException();
+
+    var node = first;
+    while (index >= node.count) {
+      index -= node.count;
+      node = node.next;
+    }
+
+    var position = node.start + index;
+    var item = node.items[position];
+    System.arraycopy(node.items, position + 1, node.items, position, node.count - index - 1);
+    node.count--;
+    size--;
+
+    if (node.count == 0)
+      unlink(node);
+    else if (node.count < MIN_FILL && node != first && node != last)
+      rebalance(node);
+
+    return item;
+  }
+
+  // O(n), but one tight array loop per chunk.
+  public int indexOf(int item) {
+    var offset = 0;
+    for (var node = first; node != null; node = node.next) {
+      var items = node.items;
+      for (int i = node.start, end = node.end(); i < end; i++)
+        if (items[i] == item)
+          return offset + i - node.start;
+
+      offset += node.count;
+    }
+
+    return -1;
+  }
+
+  public boolean contains(int item) {
+    return indexOf(item) != -1;
+  }
+
+  public void forEachChunk(ChunkVisitor visitor) {
+    for (var node = first; node != null; node = node.next)
+      visitor.visit(node.items, node.start, node.end());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int[] toArray() {
+    int[] array = new int[size];
+    var index = 0;
+    for (var node = first; node != null; node = node.next) {
+      System.arraycopy(node.items, node.start, array, index, node.count);
+      index += node.count;
+    }
+
+    return array;
+  }
+
+  // Moves the items of a node so that they begin at newStart.
+  private void compact(Node node, int newStart) {
+    System.arraycopy(node.items, node.start, node.items, newStart, node.count);
+    node.start = newStart;
+  }
+
+  // Moves the second half of a full node into a new node after it
+  // and returns the new node.
+  private Node split(Node node) {
+    var half = new Node();
+    var moved = node.count / 2;
+    System.arraycopy(node.items, node.end() - moved, half.items, 0, moved);
+    half.count = moved;
+    node.count -= moved;
+
+    linkAfter(node, half);
+
+    return half;
+  }
+
+  // Called when a middle node has dropped below half full. If the next
+  // node's items fit in this one, we merge them; otherwise we borrow
+  // enough items from it to get this node back to half full.
+  private void rebalance(Node node) {
+    var next = node.next;
+    compact(node, 0);
+
+    if (node.count + next.count <= CHUNK_SIZE) {
+      System.arraycopy(next.items, next.start, node.items, node.count, next.count);
+      node.count += next.count;
+      unlink(next);
+      return;
+    }
+
+    var borrowed = MIN_FILL - node.count;
+    System.arraycopy(next.items, next.start, node.items, node.count, borrowed);
+    node.count += borrowed;
+    next.start += borrowed;
+    next.count -= borrowed;
+  }
+
+  private void linkFirst(Node node) {
+    node.next = first;
+    if (first != null)
+      first.previous = node;
+    else
+      last = node;
+    first = node;
+  }
+
+  private void linkLast(Node node) {
+    node.previous = last;
+    if (last != null)
+      last.next = node;
+    else
+      first = node;
+    last = node;
+  }
+
+  private void linkAfter(Node node, Node newNode) {
+    newNode.previous = node;
+    newNode.next = node.next;
+    if (node.next != null)
+      node.next.previous = newNode;
+    else
+      last = newNode;
+    node.next = newNode;
+  }
+
+  private void unlink(Node node) {
+    if (node.previous != null)
+      node.previous.next = node.next;
+    else
+      first = node.next;
+
+    if (node.next != null)
+      node.next.previous = node.previous;
+    else
+      last = node.previous;
+
+    node.previous = node.next = null;
+  }
+}
@@ -0,0 +1,65 @@
+package com.codewithmosh;
+
+// Compares UnrolledLinkedList with LinkedList:
+//
+// - Memory: heap used per element after building a list of ITEMS ints.
+//   Measured as the difference in used heap around the build, so it's
+//   an estimate; run with a fixed heap (e.g. -Xms2g -Xmx2g) for
+//   steadier numbers.
+//
+// - Scan: time to run indexOf() for a value that isn't in the list,
+//   which has to visit every element.
+public class UnrolledLinkedListBenchmark {
+  private static final int ITEMS = 10_000_000;
+  private static final int SCANS = 10;
+
+  public static void main(String[] args) {
+    for (var round = 1; round <= 3; round++) {
+      System.out.println("Round " + round);
+
+      var before = usedMemory();
+      var linked = new LinkedList();
+      for (var i = 0; i < ITEMS; i++)
+        linked.addLast(i);
+      var linkedBytes = usedMemory() - before;
+
+      var start = System.nanoTime();
+      for (var i = 0; i < SCANS; i++)
+        if (linked.indexOf(-1) != -1)
+          throw new IllegalStateException();
+      var linkedNanos = System.nanoTime() - start;
+
+      report("LinkedList        ", linkedBytes, linkedNanos);
+      linked = null;
+
+      before = usedMemory();
+      var unrolled = new UnrolledLinkedList();
+      for (var i = 0; i < ITEMS; i++)
+        unrolled.addLast(i);
+      var unrolledBytes = usedMemory() - before;
+
+      start = System.nanoTime();
+      for (var i = 0; i < SCANS; i++)
+        if (unrolled.indexOf(-1) != -1)
+          throw new IllegalStateException();
+      var unrolledNanos = System.nanoTime() - start;
+
+      report("UnrolledLinkedList", unrolledBytes, unrolledNanos);
+    }
+  }
+
+  private static void report(String name, long bytes, long nanos) {
+    System.out.printf("  %s: %6.1f bytes/element, scan %8.1f M elements/s%n",
+            name,
+            (double) bytes / ITEMS,
+            (double) ITEMS * SCANS / (nanos / 1_000.0));
+  }
+
+  private static long usedMemory() {
+    var runtime = Runtime.getRuntime();
+    for (var i = 0; i < 3; i++)
+      System.gc();
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -3,15 +3,16 @@ package com.codewithmosh;
 import java.util.*;
 import java.util.HashMap;
 import java.util.PriorityQueue;
-import java.util.Stack;
 
 public class WeightedGraph {
   private class Node {
     private String label;
+    private int id;
     private List<Edge> edges = new ArrayList<>();
 
-    public Node(String label) {
+    public Node(String label, int id) {
       this.label = label;
+      this.id = id;
     }
 
     @Override
@@ -46,9 +47,40 @@ public class WeightedGraph {
   }
 
   private Map<String, Node> nodes = new HashMap<>();
+  private List<String> labels = new ArrayList<>();  // by node id
+
+  // Shortest paths we've already found, keyed by the ids of their ends
+  // (see pathKey()). The LinkedHashMap keeps the entries in the order
+  // they were last used, so when the cache is full, we drop the least
+  // recently used one. Adding an edge can make any of them shorter, so
+  // addEdge() clears the cache.
+  private static final int DEFAULT_PATH_CACHE_SIZE = 1024;
+  private final Map<Long, Path> paths;
+
+  public WeightedGraph() {
+    this(DEFAULT_PATH_CACHE_SIZE);
+  }
+
+  public WeightedGraph(int pathCacheSize) {
+    if (pathCacheSize < 0)
+      throw new IllegalArgumentException("pathCacheSize can't be negative.");
+
+    paths = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Path> eldest) {
+        return size() > pathCacheSize;
+      }
+    };
+  }
 
+  // Node ids are 0, 1, 2, ... in the order the nodes were added, so we
+  // can use them as array indexes.
   public void addNode(String label) {
-    nodes.putIfAbsent(label, new Node(label));
+    if (nodes.containsKey(label))
+      return;
+
+    nodes.put(label, new Node(label, labels.size()));
+    labels.add(label);
   }
 
   public void addEdge(String from, String to, int weight) {
@@ -62,6 +94,7 @@ public class WeightedGraph {
 
     fromNode.addEdge(toNode, weight);
     toNode.addEdge(fromNode, weight);
+    paths.clear();
   }
 
   public void print() {
@@ -82,6 +115,8 @@ public class WeightedGraph {
     }
   }
 
+  // Paths are cached, so asking for the same pair again is O(1) until
+  // the next addEdge().
   public Path getShortestPath(String from, String to) {
     var fromNode = nodes.get(from);
     if (fromNode == null)
@@ -91,14 +126,30 @@ public class WeightedGraph {
     if (toNode == null)
       throw new IllegalArgumentException();
 
-    Map<Node, Integer> distances = new HashMap<>();
-    for (var node : nodes.values())
-      distances.put(node, Integer.MAX_VALUE);
-    distances.replace(fromNode, 0);
+    var key = pathKey(fromNode, toNode);
+    var path = paths.get(key);
+    if (path == null) {
+      path = findShortestPath(fromNode, toNode);
+      paths.put(key, path);
+    }
+    return path;
+  }
+
+  private static long pathKey(Node from, Node to) {
+    return ((long) from.id << 32) | to.id;
+  }
 
-    Map<Node, Node> previousNodes = new HashMap<>();
+  // Dijkstra's algorithm. Because nodes have ids, the distances, the
+  // previous nodes and the visited set are plain arrays.
+  private Path findShortestPath(Node fromNode, Node toNode) {
+    var distances = new int[labels.size()];
+    Arrays.fill(distances, Integer.MAX_VALUE);
+    distances[fromNode.id] = 0;
 
-    Set<Node> visited = new HashSet<>();
+    var previousNodes = new int[labels.size()];
+    Arrays.fill(previousNodes, -1);
+
+    var visited = new boolean[labels.size()];
 
     PriorityQueue<NodeEntry> queue = new PriorityQueue<>(
         Comparator.comparingInt(ne -> ne.priority)
@@ -107,40 +158,42 @@ public class WeightedGraph {
 
     while (!queue.isEmpty()) {
       var current = queue.remove().node;
-      visited.add(current);
+      if (visited[current.id])
+        continue;
+      visited[current.id] = true;
+
+      if (current == toNode)
+        break;
 
       for (var edge : current.getEdges()) {
-        if (visited.contains(edge.to))
+        if (visited[edge.to.id])
           continue;
 
-        var newDistance = distances.get(current) + edge.weight;
-        if (newDistance < distances.get(edge.to)) {
-          distances.replace(edge.to, newDistance);
-          previousNodes.put(edge.to, current);
+        var newDistance = distances[current.id] + edge.weight;
+        if (newDistance < distances[edge.to.id]) {
+          distances[edge.to.id] = newDistance;
+          previousNodes[edge.to.id] = current.id;
           queue.add(new NodeEntry(edge.to, newDistance));
         }
       }
     }
 
-    return buildPath(previousNodes, toNode);
+    return buildPath(previousNodes, toNode.id, distances[toNode.id]);
   }
 
-  private Path buildPath(
-          Map<Node, Node> previousNodes, Node toNode) {
-
-    Stack<Node> stack = new Stack<>();
-    stack.push(toNode);
-    var previous = previousNodes.get(toNode);
-    while (previous != null) {
-      stack.push(previous);
-      previous = previousNodes.get(previous);
-    }
+  // We walk back from the destination twice: once to count the nodes,
+  // and once to fill the array from the end, so we don't need a stack
+  // to reverse the path.
+  private Path buildPath(int[] previousNodes, int to, int cost) {
+    var length = 0;
+    for (var node = to; node != -1; node = previousNodes[node])
+      length++;
 
-    var path = new Path();
-    while (!stack.isEmpty())
-      path.add(stack.pop().label);
+    var path = new int[length];
+    for (var node = to; node != -1; node = previousNodes[node])
+      path[--length] = node;
 
-    return path;
+    return new Path(path, cost, labels);
   }
 
   public boolean hasCycle() {
@@ -0,0 +1,94 @@
+package com.codewithmosh;
+
+import java.util.function.IntBinaryOperator;
+
+// Combines the last N values pushed with any associative function (sum,
+// gcd, bitwise or, ...) in O(1) amortized time, without recomputing
+// the whole window when it slides.
+//
+// This is the queue-with-two-stacks idea (see QueueWithTwoStacks):
+//
+// - New values go on the back stack, and we keep the aggregate of all
+//   of them in a single variable.
+// - The oldest values come off the front stack. When it's empty, we
+//   move the back stack over, and store on the front stack, for each
+//   value, the aggregate of that value and everything newer than it in
+//   the front stack. So the top of the front stack is always the
+//   aggregate of the whole front stack.
+//
+// The aggregate of the window is then front aggregate + back aggregate.
+// Every value moves between the stacks once. The function only has to
+// be associative, not commutative: the values are always combined in
+// the order they were pushed.
+public class WindowAggregator {
+  private final int capacity;
+  private final IntBinaryOperator function;
+  private final Stack front = new Stack();   // aggregates
+  private final Stack back = new Stack();    // values
+  private int backAggregate;
+
+  public WindowAggregator(int capacity, IntBinaryOperator function) {
+    if (capacity <= 0)
+      throw new IllegalArgumentException("capacity must be 1 or greater.");
+
+    this.capacity = capacity;
+    this.function = function;
+  }
+
+  // O(1) amortized. When the window is full, the oldest value leaves.
+  public void push(int value) {
+    if (size() == capacity)
+      evict();
+
+    backAggregate = back.isEmpty() ? value : function.applyAsInt(backAggregate, value);
+    back.push(value);
+  }
+
+  // O(1) amortized. Removes the oldest value.
+  public void evict() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    if (front.isEmpty())
+      moveBackToFront();
+
+    front.pop();
+  }
+
+  // O(1)
+  public int aggregate() {
+    if (isEmpty())
+      throw new IllegalStateException();
+
+    if (front.isEmpty())
+      return backAggregate;
+    if (back.isEmpty())
+      return front.peek();
+
+    return function.applyAsInt(front.peek(), backAggregate);
+  }
+
+  public int size() {
+    return front.size() + back.size();
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  // Pops the values newest first, so each aggregate covers the value
+  // and the ones pushed after it.
+  private void moveBackToFront() {
+    var aggregate = back.pop();
+    front.push(aggregate);
+
+    while (!back.isEmpty()) {
+      aggregate = function.applyAsInt(back.pop(), aggregate);
+      front.push(aggregate);
+    }
+  }
+}
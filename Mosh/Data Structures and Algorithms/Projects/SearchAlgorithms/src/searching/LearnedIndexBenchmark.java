@@ -0,0 +1,153 @@
+package searching;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Builds LearnedIndexSearch over three key distributions and compares
+// its lookups with a plain binary search:
+//
+// - sequential ids: 1, 2, 3, ... with a few random gaps (deleted rows)
+// - timestamps: milliseconds with bursty, exponentially distributed gaps
+// - lognormal: sorted samples of a heavy-tailed distribution
+//
+// For each one we report the build time, the number of segments, the
+// size of the model and the time per lookup.
+//
+// Before that, we check that keys spread over the whole range of long,
+// where key differences no longer fit in a long, are all found.
+public class LearnedIndexBenchmark {
+
+    private static final int KEYS = 10_000_000;
+    private static final int QUERIES = 2_000_000;
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+
+        checkExtremeKeys(random);
+
+        var ids = new int[KEYS];
+        var id = 0;
+        for (int i = 0; i < KEYS; i++) {
+            id += random.nextInt(100) == 0 ? 2 + random.nextInt(10) : 1;
+            ids[i] = id;
+        }
+
+        var timestamps = new long[KEYS];
+        var time = 1_600_000_000_000L;
+        for (int i = 0; i < KEYS; i++) {
+            var meanGap = (i / 100_000) % 2 == 0 ? 5.0 : 50.0;
+            time += (long) (-meanGap * Math.log(1 - random.nextDouble()));
+            timestamps[i] = time;
+        }
+
+        var lognormal = new long[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            lognormal[i] = (long) (Math.exp(random.nextGaussian() * 2) * 1_000_000);
+        }
+        Arrays.sort(lognormal);
+
+        for (int round = 1; round <= 3; round++) {
+            System.out.println("Round " + round);
+            benchmarkInts("sequential ids", ids, random);
+            benchmarkLongs("timestamps    ", timestamps, random);
+            benchmarkLongs("lognormal     ", lognormal, random);
+        }
+    }
+
+    private static void benchmarkInts(String name, int[] keys, Random random) {
+        var queries = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = keys[random.nextInt(keys.length)];
+        }
+
+        var start = System.nanoTime();
+        var index = new LearnedIndexSearch(keys);
+        var buildNanos = System.nanoTime() - start;
+
+        var binarySearch = new BinarySearch();
+        start = System.nanoTime();
+        for (int query : queries) {
+            check(binarySearch.binarySearchingRecursive(keys, query, 0, keys.length - 1));
+        }
+        var binaryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int query : queries) {
+            check(index.learnedSearching(query));
+        }
+        var learnedNanos = System.nanoTime() - start;
+
+        report(name, index, buildNanos, binaryNanos, learnedNanos);
+    }
+
+    private static void benchmarkLongs(String name, long[] keys, Random random) {
+        var queries = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = keys[random.nextInt(keys.length)];
+        }
+
+        var start = System.nanoTime();
+        var index = new LearnedIndexSearch(keys);
+        var buildNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long query : queries) {
+            check(Arrays.binarySearch(keys, query));
+        }
+        var binaryNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long query : queries) {
+            check(index.learnedSearching(query));
+        }
+        var learnedNanos = System.nanoTime() - start;
+
+        report(name, index, buildNanos, binaryNanos, learnedNanos);
+    }
+
+    private static void checkExtremeKeys(Random random) {
+        var keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        keys[0] = Long.MIN_VALUE;
+        keys[1] = Long.MIN_VALUE + 1;
+        keys[2] = -1;
+        keys[3] = 0;
+        keys[4] = Long.MAX_VALUE - 1;
+        keys[5] = Long.MAX_VALUE;
+        Arrays.sort(keys);
+
+        var index = new LearnedIndexSearch(keys, 4);
+        for (long key : keys) {
+            if (index.learnedSearching(key) != Arrays.binarySearch(keys, key)) {
+                throw new IllegalStateException("Wrong position for " + key + ".");
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            var key = random.nextLong();
+            if ((index.learnedSearching(key) >= 0) != (Arrays.binarySearch(keys, key) >= 0)) {
+                throw new IllegalStateException("Wrong result for " + key + ".");
+            }
+        }
+    }
+
+    // Every query is a key from the array, so every lookup must succeed.
+    private static void check(int index) {
+        if (index < 0) {
+            throw new IllegalStateException("Key not found.");
+        }
+    }
+
+    private static void report(String name, LearnedIndexSearch index,
+                               long buildNanos, long binaryNanos, long learnedNanos) {
+        System.out.printf("  %s: build %6.1f ms, %7d segments, %8.1f KB, "
+                        + "binary %6.1f ns/lookup, learned %6.1f ns/lookup%n",
+                name,
+                buildNanos / 1_000_000.0,
+                index.segmentCount(),
+                index.sizeInBytes() / 1024.0,
+                (double) binaryNanos / QUERIES,
+                (double) learnedNanos / QUERIES);
+    }
+}
@@ -0,0 +1,246 @@
+package searching;
+
+import java.util.Arrays;
+
+// A learned index over a sorted int[] or long[] (in the spirit of the
+// PGM-index and RadixSpline).
+//
+// The other searches always start from the whole array. But in a sorted
+// array, the position of a key is a function of the key, and for real
+// data (ids, timestamps, ...) that function is close to a straight line
+// over long stretches. So we cover the array with line segments, each
+// of which predicts the position of any key in its stretch to within
+// maxError positions. A lookup then:
+//
+// 1. finds the segment for the key (a radix table on the leading bits
+//    of the key narrows this down to a few segments),
+// 2. predicts the position with the segment's line, and
+// 3. binary searches only the few positions (about 2 * maxError)
+//    around it.
+//
+// The segments are built in one pass with the "shrinking cone" method:
+// we keep the range of slopes that keeps every key seen so far within
+// maxError of its position, narrow it with every new key, and start a
+// new segment when the range becomes empty.
+public class LearnedIndexSearch {
+
+    private static final int DEFAULT_MAX_ERROR = 32;
+    private static final int MAX_RADIX_BITS = 18;
+
+    private final int[] intKeys;
+    private final long[] longKeys;
+    private final int length;
+    private final int maxError;
+
+    private long[] segmentKeys;
+    private double[] segmentSlopes;
+    private int[] segmentPositions;
+    private int segmentCount;
+
+    private int[] radixTable;
+    private int radixShift;
+    private long minKey;
+
+    public LearnedIndexSearch(int[] inputArray) {
+        this(inputArray, DEFAULT_MAX_ERROR);
+    }
+
+    public LearnedIndexSearch(int[] inputArray, int maxError) {
+        this(inputArray, null, inputArray.length, maxError);
+    }
+
+    public LearnedIndexSearch(long[] inputArray) {
+        this(inputArray, DEFAULT_MAX_ERROR);
+    }
+
+    public LearnedIndexSearch(long[] inputArray, int maxError) {
+        this(null, inputArray, inputArray.length, maxError);
+    }
+
+    private LearnedIndexSearch(int[] intKeys, long[] longKeys, int length, int maxError) {
+        if (maxError < 1) {
+            throw new IllegalArgumentException("maxError must be 1 or greater.");
+        }
+
+        this.intKeys = intKeys;
+        this.longKeys = longKeys;
+        this.length = length;
+        this.maxError = maxError;
+
+        buildSegments();
+        buildRadixTable();
+    }
+
+    public int learnedSearching(long queryNumber) {
+        if (length == 0 || queryNumber < minKey) {
+            return -1;
+        }
+
+        var segment = findSegment(queryNumber);
+        var predicted = segmentPositions[segment]
+                + segmentSlopes[segment] * distance(segmentKeys[segment], queryNumber);
+
+        // The line is within maxError of the true position; rounding the
+        // prediction can add one more position of error.
+        var position = (int) Math.max(0, Math.min(length - 1, Math.round(predicted)));
+        var leftBoundary = Math.max(0, position - maxError - 1);
+        var rightBoundary = Math.min(length - 1, position + maxError + 1);
+
+        while (leftBoundary <= rightBoundary) {
+            var middleIndex = (leftBoundary + rightBoundary) >>> 1;
+            var middleKey = keyAt(middleIndex);
+            if (middleKey == queryNumber) {
+                return middleIndex;
+            } else if (middleKey > queryNumber) {
+                rightBoundary = middleIndex - 1;
+            } else {
+                leftBoundary = middleIndex + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    // Bytes used by the model itself (not counting the keys).
+    public long sizeInBytes() {
+        return segmentCount * (8L + 8L + 4L) + radixTable.length * 4L;
+    }
+
+    private long keyAt(int index) {
+        return intKeys != null ? intKeys[index] : longKeys[index];
+    }
+
+    // key - from, for key >= from, as a double. The difference doesn't
+    // always fit in a long (from Long.MIN_VALUE to Long.MAX_VALUE is
+    // 2^64 - 1), but it always fits in an unsigned long, which is what the
+    // subtraction gives us. The radix table below reads it the same way.
+    private static double distance(long from, long key) {
+        var difference = key - from;
+        if (difference >= 0) {
+            return difference;
+        }
+        // The top bit is set: halve, keeping the lowest bit so that the
+        // result still rounds correctly, and double again.
+        return ((difference >>> 1) | (difference & 1)) * 2.0;
+    }
+
+    private void buildSegments() {
+        segmentKeys = new long[16];
+        segmentSlopes = new double[16];
+        segmentPositions = new int[16];
+
+        if (length == 0) {
+            return;
+        }
+
+        var startIndex = 0;
+        var startKey = keyAt(0);
+        var lowSlope = 0.0;
+        var highSlope = Double.POSITIVE_INFINITY;
+
+        for (int i = 1; i < length; i++) {
+            var key = keyAt(i);
+            var distance = distance(startKey, key);
+
+            var fits = false;
+            var newLow = lowSlope;
+            var newHigh = highSlope;
+            if (distance == 0) {
+                // A duplicate of the first key is predicted at startIndex.
+                fits = i - startIndex <= maxError;
+            } else {
+                newLow = Math.max(lowSlope, (i - maxError - startIndex) / distance);
+                newHigh = Math.min(highSlope, (i + maxError - startIndex) / distance);
+                fits = newLow <= newHigh;
+            }
+
+            if (fits) {
+                lowSlope = newLow;
+                highSlope = newHigh;
+            } else {
+                addSegment(startKey, startIndex, lowSlope, highSlope);
+                startIndex = i;
+                startKey = key;
+                lowSlope = 0.0;
+                highSlope = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        addSegment(startKey, startIndex, lowSlope, highSlope);
+    }
+
+    private void addSegment(long key, int position, double lowSlope, double highSlope) {
+        if (segmentCount == segmentKeys.length) {
+            segmentKeys = Arrays.copyOf(segmentKeys, segmentCount * 2);
+            segmentSlopes = Arrays.copyOf(segmentSlopes, segmentCount * 2);
+            segmentPositions = Arrays.copyOf(segmentPositions, segmentCount * 2);
+        }
+
+        // A segment with a single key never narrowed its cone.
+        var slope = Double.isInfinite(highSlope) ? lowSlope : (lowSlope + highSlope) / 2;
+
+        segmentKeys[segmentCount] = key;
+        segmentSlopes[segmentCount] = slope;
+        segmentPositions[segmentCount] = position;
+        segmentCount++;
+    }
+
+    // radixTable[p] is the first segment whose key has the prefix p (or a
+    // larger one), where the prefix is the leading bits of (key - minKey),
+    // read as an unsigned long.
+    // All the segments a key can belong to lie between radixTable[p] - 1
+    // and radixTable[p + 1].
+    private void buildRadixTable() {
+        if (segmentCount == 0) {
+            radixTable = new int[2];
+            return;
+        }
+
+        minKey = segmentKeys[0];
+        var range = keyAt(length - 1) - minKey;
+        var rangeBits = 64 - Long.numberOfLeadingZeros(range);
+        var radixBits = Math.min(MAX_RADIX_BITS, 32 - Integer.numberOfLeadingZeros(segmentCount) + 1);
+        radixShift = Math.max(0, rangeBits - radixBits);
+
+        var prefixCount = (int) ((range >>> radixShift) + 1);
+        radixTable = new int[prefixCount + 1];
+
+        var segment = 0;
+        for (int prefix = 0; prefix <= prefixCount; prefix++) {
+            while (segment < segmentCount && prefixOf(segmentKeys[segment]) < prefix) {
+                segment++;
+            }
+            radixTable[prefix] = segment;
+        }
+    }
+
+    private long prefixOf(long key) {
+        return (key - minKey) >>> radixShift;
+    }
+
+    // Returns the last segment whose first key is <= queryNumber.
+    private int findSegment(long queryNumber) {
+        var prefix = prefixOf(queryNumber);
+        if (prefix >= radixTable.length - 1) {
+            return segmentCount - 1;
+        }
+
+        var leftBoundary = Math.max(0, radixTable[(int) prefix] - 1);
+        var rightBoundary = Math.min(segmentCount - 1, radixTable[(int) prefix + 1]);
+
+        while (leftBoundary < rightBoundary) {
+            var middleIndex = (leftBoundary + rightBoundary + 1) >>> 1;
+            if (segmentKeys[middleIndex] <= queryNumber) {
+                leftBoundary = middleIndex;
+            } else {
+                rightBoundary = middleIndex - 1;
+            }
+        }
+
+        return leftBoundary;
+    }
+}
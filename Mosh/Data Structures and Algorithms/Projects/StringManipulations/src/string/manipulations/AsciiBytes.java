@@ -0,0 +1,152 @@
+package string.manipulations;
+
+import java.nio.ByteBuffer;
+
+// Kernels that work on ASCII text 8 bytes at a time, by loading 8 bytes
+// into one long and operating on all of them at once ("SIMD within a
+// register", or SWAR). They are only valid when every byte is below 128;
+// callers check that with isAscii() first.
+//
+// All methods read buffer[position .. limit) with absolute gets, so the
+// buffer's position is left unchanged.
+class AsciiBytes {
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long[] VOWELS = {
+        repeat('a'), repeat('e'), repeat('i'), repeat('o'), repeat('u')
+    };
+
+    // Non-ASCII bytes are the ones with the high bit set, so we OR all
+    // the words together and look at the high bits once at the end.
+    public static boolean isAscii(ByteBuffer buffer) {
+        int i = buffer.position();
+        int end = buffer.limit();
+
+        long bits = 0;
+        for (; i + 8 <= end; i += 8) {
+            bits |= buffer.getLong(i);
+        }
+        for (; i < end; i++) {
+            bits |= buffer.get(i);
+        }
+
+        return (bits & HIGH_BITS) == 0;
+    }
+
+    public static int countVowels(ByteBuffer buffer) {
+        int i = buffer.position();
+        int end = buffer.limit();
+
+        var count = 0;
+        for (; i + 8 <= end; i += 8) {
+            var word = toLowerCase(buffer.getLong(i));
+            var matches = 0L;
+            for (long vowel : VOWELS) {
+                matches |= zeroBytes(word ^ vowel);
+            }
+            count += Long.bitCount(matches);
+        }
+        for (; i < end; i++) {
+            switch (buffer.get(i) | 0x20) {
+                case 'a': case 'e': case 'i': case 'o': case 'u':
+                    count++;
+            }
+        }
+
+        return count;
+    }
+
+    public static byte[] toLowerCase(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = buffer.limit();
+
+        var lower = new byte[end - start];
+        var output = ByteBuffer.wrap(lower).order(buffer.order());
+
+        int i = start;
+        for (; i + 8 <= end; i += 8) {
+            output.putLong(i - start, toLowerCase(buffer.getLong(i)));
+        }
+        for (; i < end; i++) {
+            var ch = buffer.get(i);
+            lower[i - start] = (ch >= 'A' && ch <= 'Z') ? (byte) (ch | 0x20) : ch;
+        }
+
+        return lower;
+    }
+
+    // Compares 8 bytes from the left with 8 bytes from the right (in
+    // reverse order) per step, until the two ends are less than 8 bytes
+    // apart; the middle is compared one byte at a time.
+    public static boolean isPalindrome(ByteBuffer buffer) {
+        int left = buffer.position();
+        int right = buffer.limit() - 8;
+
+        while (right - left >= 8) {
+            if (buffer.getLong(left) != Long.reverseBytes(buffer.getLong(right))) {
+                return false;
+            }
+            left += 8;
+            right -= 8;
+        }
+
+        right += 7;
+        while (left < right) {
+            if (buffer.get(left++) != buffer.get(right--)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Counting into a single table is slow when the same character repeats
+    // (every increment waits for the previous one to the same slot), so we
+    // spread consecutive bytes over four tables and add them up at the end.
+    public static int[] frequencies(ByteBuffer buffer) {
+        int i = buffer.position();
+        int end = buffer.limit();
+
+        var counts = new int[4][128];
+        for (; i + 4 <= end; i += 4) {
+            counts[0][buffer.get(i)]++;
+            counts[1][buffer.get(i + 1)]++;
+            counts[2][buffer.get(i + 2)]++;
+            counts[3][buffer.get(i + 3)]++;
+        }
+        for (; i < end; i++) {
+            counts[0][buffer.get(i)]++;
+        }
+
+        var total = new int[128];
+        for (int ch = 0; ch < 128; ch++) {
+            total[ch] = counts[0][ch] + counts[1][ch] + counts[2][ch] + counts[3][ch];
+        }
+
+        return total;
+    }
+
+    // Adds 32 ('a' - 'A') to every byte between 'A' and 'Z'. For each byte
+    // b (< 128), b + (128 - 'A') has its high bit set when b >= 'A', and
+    // b + (128 - 'Z' - 1) when b > 'Z'. Where exactly one of the two is
+    // set, the byte is an upper case letter. Shifting that high bit right
+    // by 2 gives 32 in the same byte.
+    private static long toLowerCase(long word) {
+        var atLeastA = word + repeat(128 - 'A');
+        var aboveZ = word + repeat(128 - 'Z' - 1);
+        var isUpper = (atLeastA ^ aboveZ) & HIGH_BITS;
+        return word | (isUpper >>> 2);
+    }
+
+    // Sets the high bit of every byte of x that is zero (and no others).
+    // XOR a word with a repeated character and this finds the matches.
+    private static long zeroBytes(long x) {
+        return ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+    }
+
+    private static long repeat(int value) {
+        return 0x0101010101010101L * value;
+    }
+}
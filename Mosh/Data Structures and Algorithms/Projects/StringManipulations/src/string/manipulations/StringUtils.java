@@ -1,6 +1,10 @@
 package string.manipulations;
 
+import string.search.KnuthMorrisPratt;
+
 import java.io.CharArrayReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class StringUtils {
@@ -42,8 +46,29 @@ public class StringUtils {
         return reverseWords.toString().trim();
     }
 
+    // string2 is a rotation of string1 if it occurs in string1 + string1.
+    // Instead of building that string, we feed string1 twice through a
+    // KMP search for string2, which is O(n) and allocates nothing but the
+    // pattern's failure table.
     public static boolean areRotations(String string1, String string2) {
-        return (string1.length() == string2.length() && (string1 + string1).contains(string2));
+        var length = string1.length();
+        if (length != string2.length()) {
+            return false;
+        }
+        if (length == 0) {
+            return true;
+        }
+
+        var search = new KnuthMorrisPratt(string2);
+        var state = 0;
+        for (int i = 0; i < 2 * length - 1; i++) {
+            state = search.next(state, string1.charAt(i < length ? i : i - length));
+            if (state == length) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     public static String removeDuplicates(String string) {
@@ -90,4 +115,86 @@ public class StringUtils {
 
         return Arrays.equals(string1Array, string2Array);
     }
+
+    public static boolean isPalindrome(String string) {
+        var left = 0;
+        var right = string.length() - 1;
+        while (left < right) {
+            if (string.charAt(left++) != string.charAt(right--)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Byte overloads for UTF-8 text that is mostly ASCII. When every byte
+    // is ASCII, they work on the bytes directly, 8 at a time (see
+    // AsciiBytes), without creating a String. As soon as the input has a
+    // non-ASCII byte, they decode it and use the String version instead.
+
+    public static int countVowels(byte[] bytes, int offset, int length) {
+        return countVowels(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public static int countVowels(ByteBuffer buffer) {
+        if (!AsciiBytes.isAscii(buffer)) {
+            return countVowels(decode(buffer));
+        }
+
+        return AsciiBytes.countVowels(buffer);
+    }
+
+    public static byte[] toLowerCase(byte[] bytes, int offset, int length) {
+        return toLowerCase(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public static byte[] toLowerCase(ByteBuffer buffer) {
+        if (!AsciiBytes.isAscii(buffer)) {
+            return decode(buffer).toLowerCase().getBytes(StandardCharsets.UTF_8);
+        }
+
+        return AsciiBytes.toLowerCase(buffer);
+    }
+
+    public static boolean isPalindrome(byte[] bytes, int offset, int length) {
+        return isPalindrome(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public static boolean isPalindrome(ByteBuffer buffer) {
+        if (!AsciiBytes.isAscii(buffer)) {
+            return isPalindrome(decode(buffer));
+        }
+
+        return AsciiBytes.isPalindrome(buffer);
+    }
+
+    public static ArrayList<Character> mostAbundantCharacter(byte[] bytes, int offset, int length) {
+        return mostAbundantCharacter(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    public static ArrayList<Character> mostAbundantCharacter(ByteBuffer buffer) {
+        if (!AsciiBytes.isAscii(buffer)) {
+            return mostAbundantCharacter(decode(buffer));
+        }
+
+        var frequencies = AsciiBytes.frequencies(buffer);
+        var abundance = 1;
+        for (int frequency : frequencies) {
+            abundance = Math.max(abundance, frequency);
+        }
+
+        ArrayList<Character> mostAbundantChar = new ArrayList<>();
+        for (int ch = 0; ch < frequencies.length; ch++) {
+            if (frequencies[ch] == abundance) {
+                mostAbundantChar.add((char) ch);
+            }
+        }
+
+        return mostAbundantChar;
+    }
+
+    private static String decode(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
 }
@@ -0,0 +1,320 @@
+package string.search;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Aho-Corasick search for many patterns at once.
+//
+// Searching for k keywords one by one reads the text k times. Instead,
+// we put all the patterns in a trie and walk the text through it once.
+// When the next character has no edge in the trie, we follow the
+// failure link of the current node: the node for the longest suffix of
+// what we've read that is still a prefix of some pattern. Every node
+// also has an output link to the nearest node on its failure chain that
+// ends a pattern, so we can report all the patterns ending at a position
+// (including ones inside other patterns) without walking the chain.
+//
+// The automaton is compiled into flat int tables:
+//
+// - Characters are mapped to a small alphabet first: every distinct
+//   character that appears in a pattern gets its own class, and all the
+//   other characters share class 0 (they can't continue a match).
+// - The failure links are folded into the transitions (a DFA), so every
+//   character of the text costs exactly one table lookup:
+//   transitions[state * classCount + class].
+// - The entries store the next state already multiplied by classCount,
+//   and negated (~) when the next state has output. The scan loop only
+//   has to check the sign to know whether anything matched.
+//
+// Building is O(states * classCount); searching is O(n + matches). The
+// table takes 4 * states * classCount bytes (for 5,000 keywords of 8
+// characters and 60 classes, about 10 MB).
+//
+// ByteBuffer input is read as single-byte text (ASCII or ISO-8859-1).
+public class AhoCorasick {
+
+    private static final int ROOT = 0;
+
+    private final int[] patternLengths;
+    private final int[] lowClasses = new int[256];
+    private char[] highChars;
+    private int[] highClasses;
+    private int classCount;
+
+    private int[] transitions;
+    private int[] firstPattern;     // the first pattern ending at a state, or -1
+    private int[] nextPattern;      // the next identical pattern, or -1
+    private int[] outputLinks;      // the nearest suffix state with output, or ROOT
+    private int stateCount;
+
+    public AhoCorasick(String... patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    public AhoCorasick(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            throw new IllegalArgumentException("At least one pattern is required.");
+        }
+
+        patternLengths = new int[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            if (patterns.get(i).isEmpty()) {
+                throw new IllegalArgumentException("Patterns must not be empty.");
+            }
+            patternLengths[i] = patterns.get(i).length();
+        }
+
+        buildAlphabet(patterns);
+        buildTrie(patterns);
+        buildLinks();
+    }
+
+    public int patternCount() {
+        return patternLengths.length;
+    }
+
+    public int stateCount() {
+        return stateCount;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        var row = 0;
+        for (int i = 0; i < text.length(); i++) {
+            row = transitions[row + classOf(text.charAt(i))];
+            if (row < 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Returns all the matches, including overlapping ones, in order of
+    // their end position (and longest first for the same end).
+    public List<Match> findAll(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        var matcher = matcher((patternIndex, start) -> matches.add(
+                new Match(patternIndex, (int) start, (int) start + patternLengths[patternIndex])));
+        matcher.feed(text);
+
+        return matches;
+    }
+
+    public void search(Reader reader, MatchListener listener) throws IOException {
+        var matcher = matcher(listener);
+        var buffer = new char[8192];
+
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+            matcher.feed(buffer, 0, count);
+        }
+    }
+
+    public void search(ByteBuffer buffer, MatchListener listener) {
+        matcher(listener).feed(buffer);
+    }
+
+    // A matcher keeps the state of the search between calls to feed(), so
+    // the input can arrive in pieces (network packets, file chunks, ...).
+    // Matches that span two pieces are found too.
+    public Matcher matcher(MatchListener listener) {
+        return new Matcher(listener);
+    }
+
+    public class Matcher {
+
+        private final MatchListener listener;
+        private int row;
+        private long position;
+
+        private Matcher(MatchListener listener) {
+            this.listener = listener;
+        }
+
+        public void feed(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                row = transitions[row + classOf(text.charAt(i))];
+                if (row < 0) {
+                    row = ~row;
+                    report(row / classCount, position + i);
+                }
+            }
+            position += text.length();
+        }
+
+        public void feed(char[] text, int offset, int length) {
+            for (int i = 0; i < length; i++) {
+                row = transitions[row + classOf(text[offset + i])];
+                if (row < 0) {
+                    row = ~row;
+                    report(row / classCount, position + i);
+                }
+            }
+            position += length;
+        }
+
+        // Reads buffer[position .. limit) without changing its position.
+        public void feed(ByteBuffer buffer) {
+            var start = buffer.position();
+            var end = buffer.limit();
+            for (int i = start; i < end; i++) {
+                row = transitions[row + lowClasses[buffer.get(i) & 0xFF]];
+                if (row < 0) {
+                    row = ~row;
+                    report(row / classCount, position + i - start);
+                }
+            }
+            position += end - start;
+        }
+
+        // The number of characters fed so far.
+        public long position() {
+            return position;
+        }
+
+        public void reset() {
+            row = 0;
+            position = 0;
+        }
+
+        private void report(int state, long end) {
+            for (; state != ROOT; state = outputLinks[state]) {
+                for (int pattern = firstPattern[state]; pattern != -1; pattern = nextPattern[pattern]) {
+                    listener.onMatch(pattern, end - patternLengths[pattern] + 1);
+                }
+            }
+        }
+    }
+
+    private int classOf(char ch) {
+        if (ch < 256) {
+            return lowClasses[ch];
+        }
+        var index = Arrays.binarySearch(highChars, ch);
+        return index < 0 ? 0 : highClasses[index];
+    }
+
+    private void buildAlphabet(List<String> patterns) {
+        var seen = new boolean[65536];
+        var high = new StringBuilder();
+        classCount = 1;
+
+        for (String pattern : patterns) {
+            for (char ch : pattern.toCharArray()) {
+                if (seen[ch]) {
+                    continue;
+                }
+                seen[ch] = true;
+                if (ch < 256) {
+                    lowClasses[ch] = classCount++;
+                } else {
+                    high.append(ch);
+                }
+            }
+        }
+
+        highChars = high.toString().toCharArray();
+        Arrays.sort(highChars);
+        highClasses = new int[highChars.length];
+        for (int i = 0; i < highChars.length; i++) {
+            highClasses[i] = classCount++;
+        }
+    }
+
+    // Builds the trie with plain state numbers; -1 marks a missing edge.
+    private void buildTrie(List<String> patterns) {
+        var capacity = 16;
+        transitions = new int[capacity * classCount];
+        firstPattern = new int[capacity];
+        Arrays.fill(transitions, -1);
+        Arrays.fill(firstPattern, -1);
+        nextPattern = new int[patterns.size()];
+        Arrays.fill(nextPattern, -1);
+        stateCount = 1;
+
+        for (int index = 0; index < patterns.size(); index++) {
+            var state = ROOT;
+            for (char ch : patterns.get(index).toCharArray()) {
+                var edge = state * classCount + classOf(ch);
+                if (transitions[edge] == -1) {
+                    if (stateCount == capacity) {
+                        capacity *= 2;
+                        var oldLength = transitions.length;
+                        transitions = Arrays.copyOf(transitions, capacity * classCount);
+                        Arrays.fill(transitions, oldLength, transitions.length, -1);
+                        firstPattern = Arrays.copyOf(firstPattern, capacity);
+                        Arrays.fill(firstPattern, stateCount, capacity, -1);
+                    }
+                    transitions[edge] = stateCount++;
+                }
+                state = transitions[edge];
+            }
+
+            // Identical patterns end at the same state; chain them so
+            // they are all reported, in order.
+            if (firstPattern[state] == -1) {
+                firstPattern[state] = index;
+            } else {
+                var last = firstPattern[state];
+                while (nextPattern[last] != -1) {
+                    last = nextPattern[last];
+                }
+                nextPattern[last] = index;
+            }
+        }
+
+        transitions = Arrays.copyOf(transitions, stateCount * classCount);
+        firstPattern = Arrays.copyOf(firstPattern, stateCount);
+    }
+
+    // Visits the states in breadth-first order, so a state's failure
+    // state (which is shallower) is always complete before the state
+    // itself. Missing edges are filled with the failure state's edge.
+    private void buildLinks() {
+        var failure = new int[stateCount];
+        outputLinks = new int[stateCount];
+        var queue = new int[stateCount];
+        var head = 0;
+        var tail = 0;
+
+        for (int c = 0; c < classCount; c++) {
+            var next = transitions[c];
+            if (next == -1) {
+                transitions[c] = ROOT;
+            } else {
+                failure[next] = ROOT;
+                queue[tail++] = next;
+            }
+        }
+
+        while (head < tail) {
+            var state = queue[head++];
+            var fail = failure[state];
+            outputLinks[state] = firstPattern[fail] != -1 ? fail : outputLinks[fail];
+
+            for (int c = 0; c < classCount; c++) {
+                var edge = state * classCount + c;
+                var next = transitions[edge];
+                if (next == -1) {
+                    transitions[edge] = transitions[fail * classCount + c];
+                } else {
+                    failure[next] = transitions[fail * classCount + c];
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        // Now every entry is a state; switch to premultiplied rows, and
+        // flag the states that have output (their own or a suffix's).
+        for (int i = 0; i < transitions.length; i++) {
+            var next = transitions[i];
+            var row = next * classCount;
+            var hasOutput = firstPattern[next] != -1 || outputLinks[next] != ROOT;
+            transitions[i] = hasOutput ? ~row : row;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package string.search;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Boyer-Moore-Horspool search for a single pattern.
+//
+// We compare the pattern against the text from its last character
+// backwards. Whatever the outcome, the character of the text under the
+// last position of the pattern tells us how far we can slide the pattern
+// without missing a match: up to the last place that character occurs
+// in the pattern, or the whole pattern length if it doesn't occur at
+// all. For longer patterns this skips most of the text, so the typical
+// cost is about n / m comparisons (the worst case is still O(n * m)).
+//
+// The shift table is indexed by the low 8 bits of a character. Characters
+// that share those bits share an entry, which holds the smallest of their
+// shifts; that is always safe, and it keeps the table at 256 entries.
+//
+// ByteBuffer input is read as single-byte text (ASCII or ISO-8859-1).
+public class BoyerMooreHorspool {
+
+    private final char[] pattern;
+    private final int[] shifts = new int[256];
+
+    public BoyerMooreHorspool(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("Pattern must not be empty.");
+        }
+
+        this.pattern = pattern.toCharArray();
+
+        var length = this.pattern.length;
+        Arrays.fill(shifts, length);
+        for (int i = 0; i < length - 1; i++) {
+            shifts[this.pattern[i] & 0xFF] = length - 1 - i;
+        }
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    public int indexOf(CharSequence text) {
+        return indexOf(text, 0);
+    }
+
+    public int indexOf(CharSequence text, int fromIndex) {
+        var last = pattern.length - 1;
+        for (int i = Math.max(0, fromIndex); i + last < text.length(); ) {
+            var ch = text.charAt(i + last);
+            var j = last;
+            if (ch == pattern[last]) {
+                while (j > 0 && text.charAt(i + j - 1) == pattern[j - 1]) {
+                    j--;
+                }
+                if (j == 0) {
+                    return i;
+                }
+            }
+            i += shifts[ch & 0xFF];
+        }
+
+        return -1;
+    }
+
+    // Searches buffer[position .. limit) without changing its position.
+    // The result is relative to the buffer's position.
+    public int indexOf(ByteBuffer buffer) {
+        var last = pattern.length - 1;
+        var start = buffer.position();
+        for (int i = start; i + last < buffer.limit(); ) {
+            var ch = (char) (buffer.get(i + last) & 0xFF);
+            if (ch == pattern[last] && matchesAt(buffer, i)) {
+                return i - start;
+            }
+            i += shifts[ch & 0xFF];
+        }
+
+        return -1;
+    }
+
+    // Reports every match, including overlapping ones, as pattern 0.
+    //
+    // A window is only checked once all of it has been read, so after
+    // every read we keep the characters of the windows we couldn't check
+    // yet (at most length() - 1) at the front of the buffer.
+    public void search(Reader reader, MatchListener listener) throws IOException {
+        var buffer = new char[Math.max(8192, 2 * pattern.length)];
+        var last = pattern.length - 1;
+        var count = 0;
+        var i = 0;
+        long bufferStart = 0;
+
+        int read;
+        while ((read = reader.read(buffer, count, buffer.length - count)) != -1) {
+            count += read;
+
+            while (i + last < count) {
+                var ch = buffer[i + last];
+                if (ch == pattern[last] && matchesAt(buffer, i)) {
+                    listener.onMatch(0, bufferStart + i);
+                }
+                i += shifts[ch & 0xFF];
+            }
+
+            // The last shift can take i past the characters we've read;
+            // then the next window starts in the next read.
+            var dropped = Math.min(i, count);
+            System.arraycopy(buffer, dropped, buffer, 0, count - dropped);
+            bufferStart += dropped;
+            count -= dropped;
+            i -= dropped;
+        }
+    }
+
+    private boolean matchesAt(char[] text, int index) {
+        for (int j = pattern.length - 2; j >= 0; j--) {
+            if (text[index + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesAt(ByteBuffer text, int index) {
+        for (int j = pattern.length - 2; j >= 0; j--) {
+            if ((char) (text.get(index + j) & 0xFF) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,112 @@
+package string.search;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+// Knuth-Morris-Pratt search for a single pattern.
+//
+// A naive search restarts at the next position after every mismatch,
+// which is O(n * m). KMP never moves backwards in the text: the state is
+// the number of pattern characters matched so far, and after a mismatch
+// the failure table tells us how much of that is still a match (the
+// longest prefix of the pattern that is also a suffix of what we've
+// matched). So the search is O(n + m), and because the whole state is a
+// single int, the text can come in any number of pieces.
+//
+// ByteBuffer input is read as single-byte text (ASCII or ISO-8859-1).
+public class KnuthMorrisPratt {
+
+    private final char[] pattern;
+    private final int[] failure;
+
+    public KnuthMorrisPratt(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("Pattern must not be empty.");
+        }
+
+        this.pattern = pattern.toCharArray();
+        this.failure = new int[this.pattern.length];
+
+        // failure[i] is the length of the longest proper prefix of
+        // pattern[0 .. i] that is also a suffix of it.
+        var length = 0;
+        for (int i = 1; i < this.pattern.length; i++) {
+            while (length > 0 && this.pattern[i] != this.pattern[length]) {
+                length = failure[length - 1];
+            }
+            if (this.pattern[i] == this.pattern[length]) {
+                length++;
+            }
+            failure[i] = length;
+        }
+    }
+
+    public int length() {
+        return pattern.length;
+    }
+
+    // Returns the state after reading ch in the given state. The states
+    // go from 0 (nothing matched) to length() (a full match ends at ch).
+    public int next(int state, char ch) {
+        if (state == pattern.length) {
+            state = failure[state - 1];
+        }
+        while (state > 0 && pattern[state] != ch) {
+            state = failure[state - 1];
+        }
+        if (pattern[state] == ch) {
+            state++;
+        }
+
+        return state;
+    }
+
+    public int indexOf(CharSequence text) {
+        return indexOf(text, 0);
+    }
+
+    // O(n + m)
+    public int indexOf(CharSequence text, int fromIndex) {
+        var state = 0;
+        for (int i = Math.max(0, fromIndex); i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (state == pattern.length) {
+                return i - pattern.length + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    // Reports every match, including overlapping ones, as pattern 0.
+    public void search(Reader reader, MatchListener listener) throws IOException {
+        var buffer = new char[8192];
+        var state = 0;
+        long position = 0;
+
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+            for (int i = 0; i < count; i++) {
+                state = next(state, buffer[i]);
+                if (state == pattern.length) {
+                    listener.onMatch(0, position + i - pattern.length + 1);
+                }
+            }
+            position += count;
+        }
+    }
+
+    // Searches buffer[position .. limit) without changing its position.
+    // Offsets are relative to the buffer's position.
+    public void search(ByteBuffer buffer, MatchListener listener) {
+        var state = 0;
+        var start = buffer.position();
+        for (int i = start; i < buffer.limit(); i++) {
+            state = next(state, (char) (buffer.get(i) & 0xFF));
+            if (state == pattern.length) {
+                listener.onMatch(0, i - start - pattern.length + 1);
+            }
+        }
+    }
+}
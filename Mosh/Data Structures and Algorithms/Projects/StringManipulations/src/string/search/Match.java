@@ -0,0 +1,32 @@
+package string.search;
+
+public class Match {
+
+    private final int patternIndex;
+    private final int start;
+    private final int end;
+
+    public Match(int patternIndex, int start, int end) {
+        this.patternIndex = patternIndex;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int getPatternIndex() {
+        return patternIndex;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    // Exclusive, like String.substring().
+    public int getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return "Match{pattern=" + patternIndex + ", start=" + start + ", end=" + end + "}";
+    }
+}
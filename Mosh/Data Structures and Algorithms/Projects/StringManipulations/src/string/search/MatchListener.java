@@ -0,0 +1,9 @@
+package string.search;
+
+// Receives the matches found by a streaming search, in the order in
+// which they end in the input. start is the offset of the match's first
+// character from the beginning of the input (or stream).
+@FunctionalInterface
+public interface MatchListener {
+    void onMatch(int patternIndex, long start);
+}
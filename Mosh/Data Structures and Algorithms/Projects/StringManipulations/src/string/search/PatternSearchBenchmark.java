@@ -0,0 +1,116 @@
+package string.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Searches a text of random words:
+//
+// - for one pattern, with String.indexOf, KnuthMorrisPratt and
+//   BoyerMooreHorspool, counting every occurrence, and
+// - for KEYWORDS patterns, once per keyword with String.indexOf and
+//   once for all of them with AhoCorasick.
+public class PatternSearchBenchmark {
+
+    private static final int TEXT_LENGTH = 4_000_000;
+    private static final int KEYWORDS = 2_000;
+
+    public static void main(String[] args) {
+        var random = new Random(42);
+
+        var text = new StringBuilder(TEXT_LENGTH + 16);
+        while (text.length() < TEXT_LENGTH) {
+            text.append(word(random)).append(' ');
+        }
+        var string = text.toString();
+
+        List<String> keywords = new ArrayList<>();
+        for (int i = 0; i < KEYWORDS; i++) {
+            keywords.add(word(random));
+        }
+        var pattern = "needle in the haystack";
+
+        for (int round = 1; round <= 3; round++) {
+            System.out.println("Round " + round);
+            benchmarkSingle(string, pattern);
+            benchmarkMultiple(string, keywords);
+        }
+    }
+
+    private static void benchmarkSingle(String text, String pattern) {
+        var start = System.nanoTime();
+        var count = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            count++;
+        }
+        var indexOfNanos = System.nanoTime() - start;
+
+        var kmp = new KnuthMorrisPratt(pattern);
+        start = System.nanoTime();
+        var kmpCount = 0;
+        for (int i = kmp.indexOf(text); i >= 0; i = kmp.indexOf(text, i + 1)) {
+            kmpCount++;
+        }
+        var kmpNanos = System.nanoTime() - start;
+
+        var bmh = new BoyerMooreHorspool(pattern);
+        start = System.nanoTime();
+        var bmhCount = 0;
+        for (int i = bmh.indexOf(text); i >= 0; i = bmh.indexOf(text, i + 1)) {
+            bmhCount++;
+        }
+        var bmhNanos = System.nanoTime() - start;
+
+        if (kmpCount != count || bmhCount != count) {
+            throw new IllegalStateException("Match counts differ.");
+        }
+
+        System.out.printf("  one pattern:   String.indexOf %6.1f ms, KMP %6.1f ms, BMH %6.1f ms, %d matches%n",
+                indexOfNanos / 1_000_000.0,
+                kmpNanos / 1_000_000.0,
+                bmhNanos / 1_000_000.0,
+                count);
+    }
+
+    private static void benchmarkMultiple(String text, List<String> keywords) {
+        var start = System.nanoTime();
+        long indexOfMatches = 0;
+        for (String keyword : keywords) {
+            for (int i = text.indexOf(keyword); i >= 0; i = text.indexOf(keyword, i + 1)) {
+                indexOfMatches++;
+            }
+        }
+        var indexOfNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        var automaton = new AhoCorasick(keywords);
+        var buildNanos = System.nanoTime() - start;
+
+        var matches = new long[1];
+        start = System.nanoTime();
+        automaton.matcher((patternIndex, position) -> matches[0]++).feed(text);
+        var automatonNanos = System.nanoTime() - start;
+
+        if (matches[0] != indexOfMatches) {
+            throw new IllegalStateException("Match counts differ.");
+        }
+
+        System.out.printf("  %d keywords: String.indexOf %8.1f ms, Aho-Corasick %6.1f ms "
+                        + "(build %5.1f ms, %d states), %d matches%n",
+                keywords.size(),
+                indexOfNanos / 1_000_000.0,
+                automatonNanos / 1_000_000.0,
+                buildNanos / 1_000_000.0,
+                automaton.stateCount(),
+                matches[0]);
+    }
+
+    private static String word(Random random) {
+        var length = 3 + random.nextInt(6);
+        var word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}